@@ -3,6 +3,7 @@ plugins {
     `maven-publish`
     signing
     id("org.danilopianini.publish-on-central") version "9.0.2"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.jamesward"
@@ -16,6 +17,11 @@ java {
     withSourcesJar()
 }
 
+val loadTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
 dependencies {
     implementation("org.springframework.ai:spring-ai-mcp:1.0.0")
     implementation("io.modelcontextprotocol.sdk:mcp-spring-webflux:0.10.0")
@@ -24,6 +30,37 @@ dependencies {
     api("org.springframework.boot:spring-boot:3.5.3")
     api("org.springframework.boot:spring-boot-autoconfigure:3.5.3")
     compileOnly("org.springframework:spring-webmvc:6.2.1")
+    compileOnly("io.micrometer:micrometer-core:1.15.1")
+    compileOnly("jakarta.servlet:jakarta.servlet-api:6.0.0")
+    compileOnly("ch.qos.logback:logback-classic:1.5.18")
+    compileOnly("org.apache.logging.log4j:log4j-core:2.24.3")
+    compileOnly("com.zaxxer:HikariCP:6.3.0")
+    compileOnly("com.github.ben-manes.caffeine:caffeine:3.2.0")
+
+    jmh("org.springframework:spring-webmvc:6.2.1")
+    jmh("jakarta.servlet:jakarta.servlet-api:6.0.0")
+
+    "loadTestImplementation"("io.projectreactor.netty:reactor-netty-http:1.2.7")
+}
+
+// ./gradlew jmh -Pjmh.includes=StandardToolsBenchmark
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    (project.findProperty("jmh.includes") as String?)?.let { includes = listOf(it) }
+}
+
+// ./gradlew loadTest -PloadTest.args="--sessions=500 --calls=50"
+tasks.register<JavaExec>("loadTest") {
+    description = "Opens many SSE sessions against the MCP server and reports throughput, latency and heap per session"
+    classpath = loadTest.runtimeClasspath
+    mainClass = "com.jamesward.springdevtoolsmcpserver.McpLoadTest"
+    maxHeapSize = "1g"
+    (project.findProperty("loadTest.args") as String?)?.let { args(it.split(" ")) }
 }
 
 signing {
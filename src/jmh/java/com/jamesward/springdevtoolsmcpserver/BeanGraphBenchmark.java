@@ -0,0 +1,74 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the bean dependency graph and querying it, with {@link SyntheticContexts#BEANS} beans that each
+ * depend on a few beans registered before them, and a few cycles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BeanGraphBenchmark {
+
+    private static final int DEPENDENCIES_PER_BEAN = 4;
+
+    private GenericApplicationContext context;
+    private BeanGraph beanGraph;
+
+    @Setup
+    public void setUp() {
+        context = SyntheticContexts.standardContext();
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        Random random = new Random(42);
+        for (int i = 1; i < SyntheticContexts.BEANS; i++) {
+            for (int j = 0; j < DEPENDENCIES_PER_BEAN; j++) {
+                beanFactory.registerDependentBean("syntheticBean" + random.nextInt(i), "syntheticBean" + i);
+            }
+            if (i % 1000 == 0) {
+                beanFactory.registerDependentBean("syntheticBean" + i, "syntheticBean" + (i - 1));
+            }
+        }
+        beanGraph = new BeanGraph(beanFactory);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<List<String>> build() {
+        beanGraph.onApplicationEvent(new ContextRefreshedEvent(context));
+        return beanGraph.cycles();
+    }
+
+    @Benchmark
+    public List<BeanGraph.Reached> transitiveDependents() {
+        return beanGraph.walk("syntheticBean0", true, 0);
+    }
+
+    @Benchmark
+    public List<BeanGraph.Reached> transitiveDependencies() {
+        return beanGraph.walk("syntheticBean" + (SyntheticContexts.BEANS - 1), false, 0);
+    }
+
+    @Benchmark
+    public List<String> path() {
+        return beanGraph.path("syntheticBean" + (SyntheticContexts.BEANS - 1), "syntheticBean0");
+    }
+}
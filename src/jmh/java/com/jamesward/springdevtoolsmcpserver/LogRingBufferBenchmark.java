@@ -0,0 +1,43 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what capturing a log event adds to the logging thread, with several threads logging at once, and reading
+ * the buffer while it is full.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogRingBufferBenchmark {
+
+    private LogRingBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        buffer = new LogRingBuffer(4096);
+        for (int i = 0; i < 4096; i++) {
+            buffer.append(System.currentTimeMillis(), i % 5, "com.example.Service" + (i % 50), "main", "message " + i, null);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void append() {
+        buffer.append(System.currentTimeMillis(), 2, "com.example.Service", "worker", "handled request", null);
+    }
+
+    @Benchmark
+    public LogRingBuffer.Page tailErrors() {
+        return buffer.latest(event -> event.level >= 4, 100);
+    }
+}
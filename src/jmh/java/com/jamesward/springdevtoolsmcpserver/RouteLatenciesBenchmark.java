@@ -0,0 +1,51 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what {@link RouteLatencyFilter} and {@link RouteLatencyWebFilter} add to each request, with several
+ * threads recording into the same routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouteLatenciesBenchmark {
+
+    private static final int ROUTES = 200;
+
+    private final String[] patterns = new String[ROUTES];
+    private RouteLatencies routeLatencies;
+
+    @Setup
+    public void setUp() {
+        routeLatencies = new RouteLatencies(Set.of("/sse", "/mcp"));
+        for (int i = 0; i < ROUTES; i++) {
+            patterns[i] = SyntheticContexts.path(i);
+            routeLatencies.record(patterns[i], "GET", 200, 1_000_000);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        routeLatencies.record(patterns[random.nextInt(ROUTES)], "GET", 200, random.nextLong(100_000, 50_000_000));
+    }
+
+    @Benchmark
+    public Map<String, Object> getRouteLatencies() {
+        return routeLatencies.current().toMap(null, false, 50);
+    }
+}
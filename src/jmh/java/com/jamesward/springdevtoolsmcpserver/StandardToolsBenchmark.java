@@ -0,0 +1,126 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each {@link DevToolsMCPServer.StandardTools} tool against {@link SyntheticContexts#standardContext()}.
+ * The {@code cold} benchmarks drop the caches before every call to measure the first call after a refresh. Tools
+ * returning a {@link ToolResponse} are measured including serialization, since rows are produced as they are written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StandardToolsBenchmark {
+
+    private static final long MAX_RESPONSE_BYTES = 100 * 1024;
+
+    private final StreamingJsonResultConverter converter = new StreamingJsonResultConverter();
+    private GenericApplicationContext context;
+    private BeanCatalog beanCatalog;
+    private PropertyIndex propertyIndex;
+    private DevToolsMCPServer.StandardTools tools;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SyntheticContexts.standardContext();
+        beanCatalog = new BeanCatalog(context.getBeanFactory());
+        propertyIndex = new PropertyIndex(context.getEnvironment());
+        tools = new DevToolsMCPServer.StandardTools(context, context.getEnvironment(), beanCatalog, propertyIndex,
+                new AutoConfigurationReport(context.getBeanFactory(), beanCatalog), MAX_RESPONSE_BYTES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getSpringBeans() {
+        return converter.convert(tools.getSpringBeans(null, null, null, null, null, null), null);
+    }
+
+    @Benchmark
+    public String getSpringBeansFiltered() {
+        return converter.convert(tools.getSpringBeans("Bean1", "java.util.Map", null, null, 100, null), null);
+    }
+
+    @Benchmark
+    public String getSpringBeansCold() {
+        beanCatalog.invalidate();
+        return converter.convert(tools.getSpringBeans(null, null, null, null, null, null), null);
+    }
+
+    @Benchmark
+    public Map<String, Object> getBeanDetails() {
+        return tools.getBeanDetails("syntheticBean4242");
+    }
+
+    @Benchmark
+    public String getSpringPropertiesWithPrefix() {
+        return converter.convert(tools.getSpringProperties("app.module42.", null, null), null);
+    }
+
+    @Benchmark
+    public String getSpringPropertiesAll() {
+        return converter.convert(tools.getSpringProperties(null, null, null), null);
+    }
+
+    @Benchmark
+    public String getSpringPropertiesCold() {
+        propertyIndex.invalidate();
+        return converter.convert(tools.getSpringProperties("app.module42.", null, null), null);
+    }
+
+    @Benchmark
+    public String searchSpringProperties() {
+        return converter.convert(tools.searchSpringProperties("setting4242", null, null), null);
+    }
+
+    @Benchmark
+    public String getSpringProperty() {
+        return tools.getSpringProperty("app.module42.setting42");
+    }
+
+    @Benchmark
+    public List<String> getActiveProfiles() {
+        return tools.getActiveProfiles();
+    }
+
+    @Benchmark
+    public String getAutoConfigurationInfo() {
+        return converter.convert(tools.getAutoConfigurationInfo(null, null), null);
+    }
+
+    @Benchmark
+    public String getAutoConfigurationInfoNegative() {
+        return converter.convert(tools.getAutoConfigurationInfo("negative", null), null);
+    }
+
+    @Benchmark
+    public String getAutoConfigurationInfoForSource() {
+        return converter.convert(tools.getAutoConfigurationInfo(null, "com.example.autoconfigure.Synthetic42AutoConfiguration"), null);
+    }
+
+    @Benchmark
+    public Map<String, Object> getHealthInfo() {
+        return tools.getHealthInfo();
+    }
+
+    @Benchmark
+    public List<Map<String, String>> getDependencyInfo() {
+        return tools.getDependencyInfo();
+    }
+}
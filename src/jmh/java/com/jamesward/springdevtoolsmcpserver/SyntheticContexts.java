@@ -0,0 +1,165 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Builds application contexts the size of a large service for the benchmarks.
+ */
+final class SyntheticContexts {
+
+    static final int BEANS = 10_000;
+    static final int PROPERTIES = 50_000;
+    static final int ROUTES = 2_000;
+    static final int CONDITION_SOURCES = 3_000;
+
+    private static final Condition ON_CLASS = (context, metadata) -> true;
+    private static final Condition ON_PROPERTY = (context, metadata) -> true;
+
+    private SyntheticContexts() {
+    }
+
+    /**
+     * A refreshed context with {@link #BEANS} beans of mixed scope and laziness, an environment with
+     * {@link #PROPERTIES} properties and a condition evaluation report with {@link #CONDITION_SOURCES} sources.
+     */
+    static GenericApplicationContext standardContext() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.setEnvironment(environment());
+        for (int i = 0; i < BEANS; i++) {
+            switch (i % 4) {
+                case 0 -> register(context, i, StringBuilder.class, StringBuilder::new);
+                case 1 -> register(context, i, ArrayList.class, ArrayList::new);
+                case 2 -> register(context, i, HashMap.class, HashMap::new);
+                default -> register(context, i, TreeMap.class, TreeMap::new);
+            }
+        }
+        context.refresh();
+        recordConditions(ConditionEvaluationReport.get(context.getBeanFactory()));
+        return context;
+    }
+
+    private static <T> void register(GenericApplicationContext context, int i, Class<T> type, Supplier<T> supplier) {
+        context.registerBean("syntheticBean" + i, type, supplier, definition -> {
+            if (i % 5 == 0) {
+                definition.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            }
+            definition.setLazyInit(i % 3 == 0);
+        });
+    }
+
+    private static StandardEnvironment environment() {
+        StandardEnvironment environment = new StandardEnvironment();
+        Map<String, Object> properties = new LinkedHashMap<>();
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        for (int i = 0; i < PROPERTIES; i++) {
+            String key = "app.module" + (i % 500) + ".setting" + i;
+            properties.put(key, "value" + i);
+            if (i % 10 == 0) {
+                overrides.put(key, "override" + i);
+            }
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("syntheticOverrides", overrides));
+        environment.getPropertySources().addLast(new MapPropertySource("synthetic", properties));
+        return environment;
+    }
+
+    private static void recordConditions(ConditionEvaluationReport report) {
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < CONDITION_SOURCES; i++) {
+            String source = "com.example.autoconfigure.Synthetic" + i + "AutoConfiguration";
+            candidates.add(source);
+            report.recordConditionEvaluation(source, ON_CLASS, i % 3 == 0
+                    ? ConditionOutcome.noMatch("did not find required class 'com.example.Missing" + i + "'")
+                    : ConditionOutcome.match("found required class 'com.example.Present" + i + "'"));
+            report.recordConditionEvaluation(source + "#syntheticBean", ON_PROPERTY,
+                    ConditionOutcome.match("@ConditionalOnProperty (synthetic.enabled) matched"));
+        }
+        // candidates that have no recorded conditions are reported as unconditional
+        for (int i = 0; i < CONDITION_SOURCES / 10; i++) {
+            candidates.add("com.example.autoconfigure.Unconditional" + i + "AutoConfiguration");
+        }
+        report.recordEvaluationCandidates(candidates);
+        report.recordExclusions(List.of("com.example.autoconfigure.Excluded0AutoConfiguration"));
+    }
+
+    /**
+     * A refreshed context with a Spring MVC handler mapping holding {@link #ROUTES} routes.
+     */
+    static GenericApplicationContext webMvcContext() throws NoSuchMethodException {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("requestMappingHandlerMapping",
+                org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping.class);
+        context.refresh();
+
+        var mapping = context.getBean(org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping.class);
+        SyntheticController controller = new SyntheticController();
+        Method handle = SyntheticController.class.getMethod("handle", String.class);
+        for (int i = 0; i < ROUTES; i++) {
+            mapping.registerMapping(org.springframework.web.servlet.mvc.method.RequestMappingInfo
+                    .paths(path(i))
+                    .methods(i % 2 == 0 ? RequestMethod.GET : RequestMethod.POST)
+                    .produces("application/json")
+                    .build(), controller, handle);
+        }
+        return context;
+    }
+
+    /**
+     * A refreshed context with a WebFlux handler mapping holding half of {@link #ROUTES} routes and a
+     * {@link RouterFunction} holding the other half.
+     */
+    static GenericApplicationContext webFluxContext() throws NoSuchMethodException {
+        RouterFunctions.Builder routes = RouterFunctions.route();
+        for (int i = 0; i < ROUTES / 2; i++) {
+            routes.GET("/fn" + path(i), request -> ServerResponse.ok().build());
+        }
+        RouterFunction<ServerResponse> routerFunction = routes.build();
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("requestMappingHandlerMapping",
+                org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping.class);
+        context.registerBean("syntheticRoutes", RouterFunction.class, () -> routerFunction);
+        context.refresh();
+
+        var mapping = context.getBean(org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping.class);
+        SyntheticController controller = new SyntheticController();
+        Method handle = SyntheticController.class.getMethod("handle", String.class);
+        for (int i = 0; i < ROUTES / 2; i++) {
+            mapping.registerMapping(org.springframework.web.reactive.result.method.RequestMappingInfo
+                    .paths(path(i))
+                    .methods(i % 2 == 0 ? RequestMethod.GET : RequestMethod.POST)
+                    .produces("application/json")
+                    .build(), controller, handle);
+        }
+        return context;
+    }
+
+    static String path(int i) {
+        return "/api/resource" + (i % 200) + "/item" + i + "/{id}";
+    }
+
+    public static class SyntheticController {
+        public String handle(String id) {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks tools end to end the way the MCP server calls them: arguments parsed from JSON, the tool invoked and
+ * its result serialized to JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ToolCallBenchmark {
+
+    @Param({"getSpringBeans", "getSpringProperties", "getAutoConfigurationInfo", "getDependencyInfo", "getHealthInfo",
+            "getHttpRoutes", "getWebFluxRoutes"})
+    public String toolName;
+
+    private GenericApplicationContext standardContext;
+    private GenericApplicationContext webMvcContext;
+    private GenericApplicationContext webFluxContext;
+    private ToolCallback toolCallback;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        standardContext = SyntheticContexts.standardContext();
+        webMvcContext = SyntheticContexts.webMvcContext();
+        webFluxContext = SyntheticContexts.webFluxContext();
+
+        BeanCatalog beanCatalog = new BeanCatalog(standardContext.getBeanFactory());
+        Object[] toolObjects = {
+                new DevToolsMCPServer.StandardTools(standardContext, standardContext.getEnvironment(), beanCatalog,
+                        new PropertyIndex(standardContext.getEnvironment()),
+                        new AutoConfigurationReport(standardContext.getBeanFactory(), beanCatalog), 100 * 1024),
+                new DevToolsMCPServer.WebMvcTools(new RouteIndex(webMvcContext), 100 * 1024),
+                new DevToolsMCPServer.WebFluxTools(new RouteIndex(webFluxContext), 100 * 1024)
+        };
+
+        for (ToolCallback callback : MethodToolCallbackProvider.builder().toolObjects(toolObjects).build().getToolCallbacks()) {
+            if (callback.getToolDefinition().name().equals(toolName)) {
+                toolCallback = callback;
+            }
+        }
+        if (toolCallback == null) {
+            throw new IllegalStateException("No tool named " + toolName);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        standardContext.close();
+        webMvcContext.close();
+        webFluxContext.close();
+    }
+
+    @Benchmark
+    public String call() {
+        return toolCallback.call("{}");
+    }
+}
@@ -0,0 +1,85 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link DevToolsMCPServer.WebMvcTools} and {@link DevToolsMCPServer.WebFluxTools} tools against
+ * {@link SyntheticContexts#webMvcContext()} and {@link SyntheticContexts#webFluxContext()}. The {@code cold} benchmark
+ * drops the route index before every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebToolsBenchmark {
+
+    private GenericApplicationContext webMvcContext;
+    private GenericApplicationContext webFluxContext;
+    private RouteIndex webMvcRouteIndex;
+    private RouteIndex webFluxRouteIndex;
+    private DevToolsMCPServer.WebMvcTools webMvcTools;
+    private DevToolsMCPServer.WebFluxTools webFluxTools;
+    private DevToolsMCPServer.RouteTools webMvcRouteTools;
+    private DevToolsMCPServer.RouteTools webFluxRouteTools;
+    private final StreamingJsonResultConverter converter = new StreamingJsonResultConverter();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        webMvcContext = SyntheticContexts.webMvcContext();
+        webFluxContext = SyntheticContexts.webFluxContext();
+        webMvcRouteIndex = new RouteIndex(webMvcContext);
+        webFluxRouteIndex = new RouteIndex(webFluxContext);
+        webMvcTools = new DevToolsMCPServer.WebMvcTools(webMvcRouteIndex, 100 * 1024);
+        webFluxTools = new DevToolsMCPServer.WebFluxTools(webFluxRouteIndex, 100 * 1024);
+        webMvcRouteTools = new DevToolsMCPServer.RouteTools(webMvcRouteIndex, null);
+        webFluxRouteTools = new DevToolsMCPServer.RouteTools(webFluxRouteIndex, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        webMvcContext.close();
+        webFluxContext.close();
+    }
+
+    @Benchmark
+    public String getHttpRoutes() {
+        return converter.convert(webMvcTools.getHttpRoutes(null, null, null), null);
+    }
+
+    @Benchmark
+    public String getHttpRoutesCold() {
+        webMvcRouteIndex.invalidate();
+        return converter.convert(webMvcTools.getHttpRoutes(null, null, null), null);
+    }
+
+    @Benchmark
+    public String getWebFluxRoutes() {
+        return converter.convert(webFluxTools.getWebFluxRoutes(null, null, null), null);
+    }
+
+    @Benchmark
+    public Map<String, Object> matchRouteWebMvc() {
+        return webMvcRouteTools.matchRoute("GET", "/api/resource42/item1242/7");
+    }
+
+    @Benchmark
+    public Map<String, Object> matchRouteWebFlux() {
+        return webFluxRouteTools.matchRoute("GET", "/fn/api/resource42/item242/7");
+    }
+
+    @Benchmark
+    public Map<String, Object> matchRouteNotFound() {
+        return webMvcRouteTools.matchRoute("GET", "/api/resource42/missing/7");
+    }
+}
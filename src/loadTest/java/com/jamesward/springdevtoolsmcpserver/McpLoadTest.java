@@ -0,0 +1,283 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opens many SSE sessions against the MCP server and has each of them call a mix of tools one after the other,
+ * then reports the throughput, the call latency percentiles and the heap used per open session.
+ * <p>
+ * Without {@code --url} the server is started in this JVM, with an application made only of the auto-configuration,
+ * and the heap per session includes both ends of each session. Run with
+ * {@code ./gradlew loadTest -PloadTest.args="--sessions=500 --calls=50"}.
+ */
+public class McpLoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final List<Map<String, Object>> TOOL_CALLS = List.of(
+            Map.of("name", "getActiveProfiles", "arguments", Map.of()),
+            Map.of("name", "getSpringBeans", "arguments", Map.of("limit", 50)),
+            Map.of("name", "getSpringProperties", "arguments", Map.of("prefix", "spring")),
+            Map.of("name", "getHealthInfo", "arguments", Map.of()),
+            Map.of("name", "getMcpServerStats", "arguments", Map.of()));
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    static class LoadTestApplication {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessionCount = intArg(args, "--sessions=", 200);
+        int callsPerSession = intArg(args, "--calls=", 20);
+        String url = stringArg(args, "--url=", null);
+
+        ConfigurableApplicationContext context = null;
+        if (url == null) {
+            int port = freePort();
+            context = new SpringApplicationBuilder(LoadTestApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("devtools.mcp.port=" + port, "devtools.mcp.startup=eager", "spring.main.banner-mode=off")
+                    .run();
+            url = "http://localhost:" + port;
+        }
+
+        HttpClient client = HttpClient.create(ConnectionProvider.builder("mcp-load-test").maxConnections(sessionCount * 2).build())
+                .baseUrl(url)
+                .responseTimeout(Duration.ofSeconds(60));
+        try {
+            long baselineHeap = usedHeap();
+
+            List<Session> sessions = new ArrayList<>();
+            List<CompletableFuture<?>> opened = new ArrayList<>();
+            for (int i = 0; i < sessionCount; i++) {
+                Session session = new Session(client);
+                sessions.add(session);
+                opened.add(session.open());
+            }
+            CompletableFuture.allOf(opened.toArray(new CompletableFuture<?>[0])).get(2, TimeUnit.MINUTES);
+            long sessionHeap = Math.max(0, usedHeap() - baselineHeap);
+
+            AtomicLong errors = new AtomicLong();
+            long[] latencies = new long[sessionCount * callsPerSession];
+            AtomicLong recorded = new AtomicLong();
+            long startNanos = System.nanoTime();
+            List<CompletableFuture<?>> runs = new ArrayList<>();
+            for (int i = 0; i < sessionCount; i++) {
+                runs.add(sessions.get(i).callTools(i, callsPerSession, latencies, recorded, errors));
+            }
+            CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.MINUTES);
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            int count = (int) recorded.get();
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("sessions: %d, calls: %d, errors: %d%n", sessionCount, count, errors.get());
+            System.out.printf("throughput: %.1f calls/s%n", count / (elapsedNanos / 1e9));
+            System.out.printf("latency ms: p50 %.2f, p95 %.2f, p99 %.2f, max %.2f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99), percentile(sorted, 1.0));
+            System.out.printf("heap per open session: %d bytes%s%n", sessionHeap / sessionCount,
+                    context != null ? " (client and server)" : " (client only)");
+
+            JsonNode stats = sessions.get(0).call("getMcpServerStats", Map.of()).get(1, TimeUnit.MINUTES);
+            JsonNode transport = MAPPER.readTree(stats.path("result").path("content").path(0).path("text").asText("{}")).path("transport");
+            System.out.println("server transport: " + transport);
+
+            sessions.forEach(Session::close);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static final class Session {
+        private final HttpClient client;
+        private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+        private final CompletableFuture<String> endpoint = new CompletableFuture<>();
+        private final AtomicLong nextId = new AtomicLong();
+        private final StringBuilder events = new StringBuilder();
+        private Disposable connection;
+
+        Session(HttpClient client) {
+            this.client = client;
+        }
+
+        CompletableFuture<JsonNode> open() {
+            connection = client.headers(headers -> headers.set(HttpHeaderNames.ACCEPT, "text/event-stream"))
+                    .get()
+                    .uri("/sse")
+                    .responseContent()
+                    .asString()
+                    .subscribe(this::onChunk, endpoint::completeExceptionally);
+
+            ObjectNode initialize = MAPPER.createObjectNode();
+            initialize.put("protocolVersion", "2024-11-05");
+            initialize.putObject("capabilities");
+            initialize.putObject("clientInfo").put("name", "mcp-load-test").put("version", "1.0.0");
+            return endpoint
+                    .thenCompose(ignored -> request("initialize", initialize))
+                    .thenCompose(response -> post(message(null, "notifications/initialized", MAPPER.createObjectNode()))
+                            .thenApply(ignored -> response));
+        }
+
+        CompletableFuture<Void> callTools(int session, int calls, long[] latencies, AtomicLong recorded, AtomicLong errors) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < calls; i++) {
+                Map<String, Object> toolCall = TOOL_CALLS.get((session + i) % TOOL_CALLS.size());
+                chain = chain.thenCompose(ignored -> {
+                    long startNanos = System.nanoTime();
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> arguments = (Map<String, Object>) toolCall.get("arguments");
+                    return call((String) toolCall.get("name"), arguments).handle((response, e) -> {
+                        latencies[(int) recorded.getAndIncrement()] = System.nanoTime() - startNanos;
+                        if (e != null || response.has("error") || response.path("result").path("isError").asBoolean()) {
+                            errors.incrementAndGet();
+                        }
+                        return null;
+                    });
+                });
+            }
+            return chain;
+        }
+
+        CompletableFuture<JsonNode> call(String tool, Map<String, Object> arguments) {
+            ObjectNode params = MAPPER.createObjectNode();
+            params.put("name", tool);
+            params.set("arguments", MAPPER.valueToTree(arguments));
+            return request("tools/call", params);
+        }
+
+        private CompletableFuture<JsonNode> request(String method, ObjectNode params) {
+            long id = nextId.getAndIncrement();
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            pending.put(id, response);
+            return post(message(id, method, params)).thenCompose(ignored -> response);
+        }
+
+        private CompletableFuture<Void> post(String message) {
+            return client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+                    .post()
+                    .uri(endpoint.join())
+                    .send(ByteBufFlux.fromString(Mono.just(message)))
+                    .responseSingle((response, body) -> body.then())
+                    .toFuture();
+        }
+
+        private static String message(Long id, String method, ObjectNode params) {
+            ObjectNode message = MAPPER.createObjectNode();
+            message.put("jsonrpc", "2.0");
+            if (id != null) {
+                message.put("id", id);
+            }
+            message.put("method", method);
+            message.set("params", params);
+            return message.toString();
+        }
+
+        /**
+         * Splits the stream into events, which chunks do not line up with.
+         */
+        private void onChunk(String chunk) {
+            events.append(chunk.replace("\r\n", "\n"));
+            int end;
+            while ((end = events.indexOf("\n\n")) >= 0) {
+                String event = events.substring(0, end);
+                events.delete(0, end + 2);
+                onEvent(event);
+            }
+        }
+
+        private void onEvent(String event) {
+            String name = "message";
+            StringBuilder data = new StringBuilder();
+            for (String line : event.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5).trim());
+                }
+            }
+            if (name.equals("endpoint")) {
+                endpoint.complete(data.toString());
+                return;
+            }
+            try {
+                JsonNode message = MAPPER.readTree(data.toString());
+                CompletableFuture<JsonNode> response = message.has("id") ? pending.remove(message.get("id").asLong()) : null;
+                if (response != null) {
+                    response.complete(message);
+                }
+            } catch (IOException e) {
+                // not a JSON-RPC message
+            }
+        }
+
+        void close() {
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static int intArg(String[] args, String prefix, int defaultValue) {
+        String value = stringArg(args, prefix, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static String stringArg(String[] args, String prefix, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,183 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of the condition evaluation report and of the {@code @Configuration} beans. The report cannot
+ * change once the context is refreshed, so it is captured once when the application is ready (or on first use) and
+ * every query is answered from the snapshot.
+ */
+class AutoConfigurationReport implements ApplicationListener<ApplicationEvent> {
+
+    enum Matches {
+        ALL, POSITIVE, NEGATIVE
+    }
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final BeanCatalog beanCatalog;
+
+    private volatile Snapshot snapshot;
+
+    AutoConfigurationReport(ConfigurableListableBeanFactory beanFactory, BeanCatalog beanCatalog) {
+        this.beanFactory = beanFactory;
+        this.beanCatalog = beanCatalog;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationReadyEvent) {
+            snapshot = capture();
+        } else if (BeanCatalog.isRefreshEvent(event)) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Renders the report, restricted to positive or negative matches and to the sources declared by
+     * {@code sourceClass} when it is given.
+     */
+    Map<String, Object> toMap(Matches matches, String sourceClass) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            current = capture();
+            snapshot = current;
+        }
+
+        Map<String, Object> autoConfigInfo = new HashMap<>();
+        if (current.error != null) {
+            autoConfigInfo.put("error", current.error);
+        }
+
+        Map<String, Object> positiveMatches = new TreeMap<>();
+        Map<String, Object> negativeMatches = new TreeMap<>();
+        for (SourceOutcomes source : current.sources) {
+            if (sourceClass != null && !source.isDeclaredBy(sourceClass)) {
+                continue;
+            }
+            if (source.fullMatch && matches != Matches.NEGATIVE) {
+                positiveMatches.put(source.source, source.outcomes);
+            } else if (!source.fullMatch && matches != Matches.POSITIVE) {
+                negativeMatches.put(source.source, source.outcomes);
+            }
+        }
+        if (matches != Matches.NEGATIVE) {
+            autoConfigInfo.put("positiveMatches", positiveMatches);
+        }
+        if (matches != Matches.POSITIVE) {
+            autoConfigInfo.put("negativeMatches", negativeMatches);
+        }
+
+        if (sourceClass == null) {
+            autoConfigInfo.put("exclusions", current.exclusions);
+            autoConfigInfo.put("unconditionalClasses", current.unconditionalClasses);
+            autoConfigInfo.put("configurationBeans", current.configurationBeans);
+        } else {
+            Map<String, Object> configurationBeans = new TreeMap<>();
+            current.configurationBeans.forEach((beanName, configInfo) -> {
+                if (sourceClass.equals(configInfo.get("class"))) {
+                    configurationBeans.put(beanName, configInfo);
+                }
+            });
+            autoConfigInfo.put("configurationBeans", configurationBeans);
+        }
+
+        return autoConfigInfo;
+    }
+
+    private Snapshot capture() {
+        List<SourceOutcomes> sources = new ArrayList<>();
+        List<String> exclusions = List.of();
+        List<String> unconditionalClasses = List.of();
+        String error = null;
+
+        try {
+            ConditionEvaluationReport report = ConditionEvaluationReport.get(beanFactory);
+            for (Map.Entry<String, ConditionEvaluationReport.ConditionAndOutcomes> entry : report.getConditionAndOutcomesBySource().entrySet()) {
+                List<Map<String, Object>> outcomes = new ArrayList<>();
+                for (ConditionEvaluationReport.ConditionAndOutcome conditionAndOutcome : entry.getValue()) {
+                    Map<String, Object> outcome = new LinkedHashMap<>();
+                    outcome.put("condition", ClassUtils.getShortName(conditionAndOutcome.getCondition().getClass()));
+                    outcome.put("match", conditionAndOutcome.getOutcome().isMatch());
+                    outcome.put("message", conditionAndOutcome.getOutcome().getMessage());
+                    outcomes.add(Collections.unmodifiableMap(outcome));
+                }
+                sources.add(new SourceOutcomes(entry.getKey(), entry.getValue().isFullMatch(), List.copyOf(outcomes)));
+            }
+            exclusions = List.copyOf(report.getExclusions());
+            unconditionalClasses = List.copyOf(report.getUnconditionalClasses());
+        } catch (Exception e) {
+            error = "Could not access ConditionEvaluationReport: " + e.getMessage();
+        }
+
+        return new Snapshot(List.copyOf(sources), exclusions, unconditionalClasses, configurationBeans(), error);
+    }
+
+    private Map<String, Map<String, Object>> configurationBeans() {
+        Map<String, Map<String, Object>> configurationBeans = new TreeMap<>();
+        for (BeanCatalog.Entry entry : beanCatalog.entries()) {
+            if (entry.type == null) {
+                continue;
+            }
+            try {
+                // The type of a @Configuration bean is its CGLIB subclass, which does not carry the annotations
+                Class<?> beanClass = ClassUtils.getUserClass(entry.type);
+                if (!beanClass.isAnnotationPresent(Configuration.class)) {
+                    continue;
+                }
+
+                Map<String, Object> configInfo = new HashMap<>();
+                configInfo.put("class", beanClass.getName());
+
+                // Check for @ConditionalOn* annotations
+                List<String> conditions = new ArrayList<>();
+                for (Annotation annotation : beanClass.getAnnotations()) {
+                    String annotationName = annotation.annotationType().getName();
+                    if (annotationName.contains("Conditional")) {
+                        conditions.add(annotationName);
+                    }
+                }
+                configInfo.put("conditions", List.copyOf(conditions));
+
+                boolean isAutoConfig = beanClass.isAnnotationPresent(AutoConfiguration.class) ||
+                        beanClass.isAnnotationPresent(EnableAutoConfiguration.class);
+                configInfo.put("isAutoConfiguration", isAutoConfig);
+
+                configurationBeans.put(entry.name, Map.copyOf(configInfo));
+            } catch (Exception | LinkageError e) {
+                // Skip beans that can't be analyzed
+            }
+        }
+        return Collections.unmodifiableMap(configurationBeans);
+    }
+
+    private record Snapshot(List<SourceOutcomes> sources, List<String> exclusions, List<String> unconditionalClasses,
+                            Map<String, Map<String, Object>> configurationBeans, String error) {
+    }
+
+    private record SourceOutcomes(String source, boolean fullMatch, List<Map<String, Object>> outcomes) {
+
+        /**
+         * Sources are either a class name or {@code ClassName#methodName} for {@code @Bean} methods.
+         */
+        boolean isDeclaredBy(String className) {
+            return source.equals(className) || (source.startsWith(className) && source.charAt(className.length()) == '#');
+        }
+    }
+}
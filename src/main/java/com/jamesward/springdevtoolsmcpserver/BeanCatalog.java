@@ -0,0 +1,195 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Catalog of the bean definitions in a bean factory, built from definition metadata so that beans are never
+ * instantiated just to be listed. The catalog is built lazily and dropped when the context is refreshed or
+ * devtools signals a restart.
+ */
+class BeanCatalog implements ApplicationListener<ApplicationEvent> {
+
+    static final String DEVTOOLS_CLASSPATH_CHANGED_EVENT = "org.springframework.boot.devtools.classpath.ClassPathChangedEvent";
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    private volatile Snapshot snapshot;
+
+    BeanCatalog(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    static boolean isRefreshEvent(ApplicationEvent event) {
+        return event instanceof ContextRefreshedEvent || DEVTOOLS_CLASSPATH_CHANGED_EVENT.equals(event.getClass().getName());
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (isRefreshEvent(event)) {
+            invalidate();
+        }
+    }
+
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * All entries, sorted by bean name.
+     */
+    List<Entry> entries() {
+        return snapshot().entries;
+    }
+
+    Entry get(String beanName) {
+        Snapshot current = snapshot();
+        int index = Arrays.binarySearch(current.names, beanName);
+        return index >= 0 ? current.entries.get(index) : null;
+    }
+
+    /**
+     * Returns up to {@code limit} entries matching the filters, starting after the bean named by {@code cursor}.
+     * The type filter matches beans assignable to the named class, or whose type name contains the filter when the
+     * class cannot be resolved.
+     */
+    Page query(String nameFilter, String typeFilter, String packageFilter, String cursor, int limit) {
+        Snapshot snapshot = snapshot();
+        List<Entry> current = snapshot.entries;
+
+        int start = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            int index = Arrays.binarySearch(snapshot.names, cursor);
+            start = index >= 0 ? index + 1 : -index - 1;
+        }
+
+        String name = nameFilter != null && !nameFilter.isEmpty() ? nameFilter.toLowerCase(Locale.ROOT) : null;
+        String packageName = packageFilter != null && !packageFilter.isEmpty() ? packageFilter : null;
+        String typeName = typeFilter != null && !typeFilter.isEmpty() ? typeFilter : null;
+        Class<?> type = typeName != null ? resolveClass(typeName) : null;
+
+        List<Entry> matches = new ArrayList<>(Math.min(limit, 256));
+        String nextCursor = null;
+        for (int i = start; i < current.size(); i++) {
+            Entry entry = current.get(i);
+            if (name != null && !entry.name.toLowerCase(Locale.ROOT).contains(name)) {
+                continue;
+            }
+            if (packageName != null && (entry.typeName == null || !entry.typeName.startsWith(packageName))) {
+                continue;
+            }
+            if (typeName != null) {
+                boolean matchesType = type != null
+                        ? entry.type != null && type.isAssignableFrom(entry.type)
+                        : entry.typeName != null && entry.typeName.contains(typeName);
+                if (!matchesType) {
+                    continue;
+                }
+            }
+            if (matches.size() == limit) {
+                nextCursor = matches.get(limit - 1).name;
+                break;
+            }
+            matches.add(entry);
+        }
+        return new Page(matches, nextCursor);
+    }
+
+    private Class<?> resolveClass(String className) {
+        try {
+            return ClassUtils.forName(className, beanFactory.getBeanClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private Snapshot build() {
+        String[] names = beanFactory.getBeanDefinitionNames();
+        Arrays.sort(names);
+
+        List<Entry> result = new ArrayList<>(names.length);
+        for (String name : names) {
+            Class<?> type = null;
+            String scope = BeanDefinition.SCOPE_SINGLETON;
+            boolean lazy = false;
+            boolean isAbstract = false;
+            try {
+                BeanDefinition definition = beanFactory.getMergedBeanDefinition(name);
+                if (!definition.getScope().isEmpty()) {
+                    scope = definition.getScope();
+                }
+                lazy = definition.isLazyInit();
+                isAbstract = definition.isAbstract();
+                if (!isAbstract) {
+                    type = beanFactory.getType(name, false);
+                }
+            } catch (Exception e) {
+                // Leave the type unresolved, the bean is still listed
+            }
+            result.add(new Entry(name, type, scope, lazy, isAbstract));
+        }
+        return new Snapshot(names, Collections.unmodifiableList(result));
+    }
+
+    private static final class Snapshot {
+        final String[] names;
+        final List<Entry> entries;
+
+        Snapshot(String[] names, List<Entry> entries) {
+            this.names = names;
+            this.entries = entries;
+        }
+    }
+
+    static final class Entry {
+        final String name;
+        final Class<?> type;
+        final String typeName;
+        final String scope;
+        final boolean lazy;
+        final boolean isAbstract;
+
+        Entry(String name, Class<?> type, String scope, boolean lazy, boolean isAbstract) {
+            this.name = name;
+            this.type = type;
+            this.typeName = type != null ? type.getName() : null;
+            this.scope = scope;
+            this.lazy = lazy;
+            this.isAbstract = isAbstract;
+        }
+    }
+
+    static final class Page {
+        final List<Entry> entries;
+        final String nextCursor;
+
+        Page(List<Entry> entries, String nextCursor) {
+            this.entries = entries;
+            this.nextCursor = nextCursor;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Graph of the dependencies the bean factory recorded between beans while creating them. Beans are numbered in name
+ * order and the edges are kept as compressed adjacency arrays in both directions, so that transitive queries are
+ * breadth-first walks over {@code int} arrays. The dependencies and dependents recorded by the factory mirror each
+ * other, so the dependents are built by transposing the dependencies rather than asked for again.
+ * <p>
+ * Only dependencies of beans that were created are known, so lazy beans that were never requested have none. The
+ * graph is built lazily and dropped when the context is refreshed or devtools signals a restart.
+ */
+class BeanGraph implements ApplicationListener<ApplicationEvent> {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    private volatile Snapshot snapshot;
+
+    BeanGraph(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (BeanCatalog.isRefreshEvent(event)) {
+            snapshot = null;
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    boolean contains(String beanName) {
+        return snapshot().index(beanName) >= 0;
+    }
+
+    int edgeCount() {
+        return snapshot().dependencyTargets.length;
+    }
+
+    int beanCount() {
+        return snapshot().names.length;
+    }
+
+    /**
+     * Walks the dependencies of {@code beanName}, or the beans depending on it, breadth first, returning each bean
+     * reached with its depth and the bean it was reached from. A {@code maxDepth} of 0 or less is unbounded.
+     */
+    List<Reached> walk(String beanName, boolean dependents, int maxDepth) {
+        Snapshot current = snapshot();
+        int start = current.index(beanName);
+        if (start < 0) {
+            return null;
+        }
+        int[] offsets = dependents ? current.dependentOffsets : current.dependencyOffsets;
+        int[] targets = dependents ? current.dependentTargets : current.dependencyTargets;
+
+        int[] depth = new int[current.names.length];
+        Arrays.fill(depth, -1);
+        int[] queue = new int[current.names.length];
+        int head = 0;
+        int tail = 0;
+        depth[start] = 0;
+        queue[tail++] = start;
+
+        List<Reached> reached = new ArrayList<>();
+        while (head < tail) {
+            int node = queue[head++];
+            if (maxDepth > 0 && depth[node] == maxDepth) {
+                continue;
+            }
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = targets[i];
+                if (depth[next] < 0) {
+                    depth[next] = depth[node] + 1;
+                    queue[tail++] = next;
+                    reached.add(new Reached(current.names[next], depth[next], current.names[node]));
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * The shortest chain of dependencies leading from {@code from} to {@code to}, both included, or an empty list
+     * when {@code from} does not depend on {@code to}, even transitively. Returns {@code null} when either bean is
+     * unknown.
+     */
+    List<String> path(String from, String to) {
+        Snapshot current = snapshot();
+        int start = current.index(from);
+        int end = current.index(to);
+        if (start < 0 || end < 0) {
+            return null;
+        }
+
+        int[] parent = new int[current.names.length];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[current.names.length];
+        int head = 0;
+        int tail = 0;
+        parent[start] = start;
+        queue[tail++] = start;
+        while (head < tail && parent[end] < 0) {
+            int node = queue[head++];
+            for (int i = current.dependencyOffsets[node]; i < current.dependencyOffsets[node + 1]; i++) {
+                int next = current.dependencyTargets[i];
+                if (parent[next] < 0) {
+                    parent[next] = node;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        if (parent[end] < 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> path = new ArrayList<>();
+        for (int node = end; node != start; node = parent[node]) {
+            path.add(current.names[node]);
+        }
+        path.add(current.names[start]);
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * The groups of beans that depend on each other, found as the strongly connected components of more than one
+     * bean, or of a bean depending on itself. Each group is sorted by name.
+     */
+    List<List<String>> cycles() {
+        return snapshot().cycles;
+    }
+
+    private Snapshot build() {
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        Set<String> known = new LinkedHashSet<>(Arrays.asList(beanFactory.getBeanDefinitionNames()));
+        known.addAll(Arrays.asList(beanFactory.getSingletonNames()));
+
+        // dependencies can name beans that are neither defined nor registered, such as ones since destroyed
+        Map<String, String[]> dependencies = new HashMap<>();
+        for (String name : known) {
+            dependencies.put(name, beanFactory.getDependenciesForBean(name));
+        }
+        Set<String> all = new TreeSet<>(known);
+        for (String[] targets : dependencies.values()) {
+            Collections.addAll(all, targets);
+        }
+        for (String name : all) {
+            indexes.put(name, names.size());
+            names.add(name);
+        }
+
+        int count = names.size();
+        int[] dependencyOffsets = new int[count + 1];
+        int edges = 0;
+        for (int node = 0; node < count; node++) {
+            dependencyOffsets[node] = edges;
+            String[] targets = dependencies.get(names.get(node));
+            edges += targets != null ? targets.length : 0;
+        }
+        dependencyOffsets[count] = edges;
+
+        int[] dependencyTargets = new int[edges];
+        int[] inDegree = new int[count];
+        for (int node = 0; node < count; node++) {
+            String[] targets = dependencies.get(names.get(node));
+            if (targets == null) {
+                continue;
+            }
+            int offset = dependencyOffsets[node];
+            for (String target : targets) {
+                int index = indexes.get(target);
+                dependencyTargets[offset++] = index;
+                inDegree[index]++;
+            }
+            Arrays.sort(dependencyTargets, dependencyOffsets[node], offset);
+        }
+
+        // transpose: nodes are visited in order, so each node's dependents come out sorted
+        int[] dependentOffsets = new int[count + 1];
+        for (int node = 0; node < count; node++) {
+            dependentOffsets[node + 1] = dependentOffsets[node] + inDegree[node];
+        }
+        int[] fill = Arrays.copyOf(dependentOffsets, count);
+        int[] dependentTargets = new int[edges];
+        for (int node = 0; node < count; node++) {
+            for (int i = dependencyOffsets[node]; i < dependencyOffsets[node + 1]; i++) {
+                dependentTargets[fill[dependencyTargets[i]]++] = node;
+            }
+        }
+
+        String[] sortedNames = names.toArray(new String[0]);
+        return new Snapshot(sortedNames, dependencyOffsets, dependencyTargets, dependentOffsets, dependentTargets,
+                cycles(sortedNames, dependencyOffsets, dependencyTargets));
+    }
+
+    /**
+     * Tarjan's strongly connected components, with an explicit stack so that long dependency chains cannot overflow
+     * the thread stack.
+     */
+    private static List<List<String>> cycles(String[] names, int[] offsets, int[] targets) {
+        int count = names.length;
+        int[] index = new int[count];
+        Arrays.fill(index, -1);
+        int[] lowLink = new int[count];
+        boolean[] onStack = new boolean[count];
+        int[] stack = new int[count];
+        int stackSize = 0;
+        int[] callNode = new int[count];
+        int[] callEdge = new int[count];
+        int nextIndex = 0;
+
+        List<List<String>> cycles = new ArrayList<>();
+        for (int root = 0; root < count; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = offsets[root];
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth >= 0) {
+                int node = callNode[depth];
+                if (callEdge[depth] < offsets[node + 1]) {
+                    int next = targets[callEdge[depth]++];
+                    if (index[next] < 0) {
+                        index[next] = lowLink[next] = nextIndex++;
+                        stack[stackSize++] = next;
+                        onStack[next] = true;
+                        depth++;
+                        callNode[depth] = next;
+                        callEdge[depth] = offsets[next];
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[node] == index[node]) {
+                    List<String> component = new ArrayList<>();
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        component.add(names[member]);
+                    } while (member != node);
+                    if (component.size() > 1 || dependsOnItself(node, offsets, targets)) {
+                        Collections.sort(component);
+                        cycles.add(Collections.unmodifiableList(component));
+                    }
+                }
+                depth--;
+                if (depth >= 0) {
+                    int caller = callNode[depth];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+            }
+        }
+        return Collections.unmodifiableList(cycles);
+    }
+
+    private static boolean dependsOnItself(int node, int[] offsets, int[] targets) {
+        return Arrays.binarySearch(targets, offsets[node], offsets[node + 1], node) >= 0;
+    }
+
+    private static final class Snapshot {
+        final String[] names;
+        final int[] dependencyOffsets;
+        final int[] dependencyTargets;
+        final int[] dependentOffsets;
+        final int[] dependentTargets;
+        final List<List<String>> cycles;
+
+        Snapshot(String[] names, int[] dependencyOffsets, int[] dependencyTargets, int[] dependentOffsets,
+                 int[] dependentTargets, List<List<String>> cycles) {
+            this.names = names;
+            this.dependencyOffsets = dependencyOffsets;
+            this.dependencyTargets = dependencyTargets;
+            this.dependentOffsets = dependentOffsets;
+            this.dependentTargets = dependentTargets;
+            this.cycles = cycles;
+        }
+
+        int index(String name) {
+            return name != null ? Arrays.binarySearch(names, name) : -1;
+        }
+    }
+
+    static final class Reached {
+        final String name;
+        final int depth;
+        final String via;
+
+        Reached(String name, int depth, String via) {
+            this.name = name;
+            this.depth = depth;
+            this.via = via;
+        }
+    }
+}
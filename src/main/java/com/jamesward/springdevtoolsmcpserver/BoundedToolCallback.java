@@ -0,0 +1,60 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many tools run at the same time across all sessions, with {@code devtools.mcp.max-concurrent-tools}.
+ * A call waits up to {@link #PERMIT_TIMEOUT} for another call to finish and then fails, which the client sees as a
+ * tool error it can retry, instead of piling up threads that all compete with the application.
+ */
+class BoundedToolCallback implements ToolCallback {
+
+    static final Duration PERMIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ToolCallback delegate;
+    private final Semaphore permits;
+
+    BoundedToolCallback(ToolCallback delegate, Semaphore permits) {
+        this.delegate = delegate;
+        this.permits = permits;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        try {
+            if (!permits.tryAcquire(PERMIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Too many tools are running, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to run the tool", e);
+        }
+        try {
+            return toolContext != null ? delegate.call(toolInput, toolContext) : delegate.call(toolInput);
+        } finally {
+            permits.release();
+        }
+    }
+}
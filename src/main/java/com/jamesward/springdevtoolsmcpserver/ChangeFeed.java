@@ -0,0 +1,379 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Versioned history of the beans, properties and routes of the application, so that a client can fetch what changed
+ * since the version it last saw instead of every entry again. Each entry is kept as a content hash with the versions
+ * it was created and last modified in, and removed entries are kept as tombstones, so that the changes since any
+ * retained version are computed without storing past snapshots.
+ * <p>
+ * The history is static, {@linkplain com.jamesward.springdevtoolsmcpserver kept across restarts}, so the versions stay
+ * valid when the application context is recreated. Versions start from the time the JVM first captured, so a version
+ * from an earlier JVM is always older than the retained history and asks for a resync.
+ * A new version is captured when the application is ready and before changes are read. Initialized clients are
+ * notified of it with a logging notification from the {@code devtools.changes} logger, and each client is told the
+ * current version when it initializes its session. A devtools restart closes every session with the old server, so
+ * the reconnecting clients learn about the new version either way, whether they initialize before or after it is
+ * captured.
+ */
+class ChangeFeed implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Log logger = LogFactory.getLog(ChangeFeed.class);
+
+    static final String BEANS = "beans";
+    static final String PROPERTIES = "properties";
+    static final String ROUTES = "routes";
+    static final String NOTIFICATION_LOGGER = "devtools.changes";
+
+    private static final int MAX_TOMBSTONES = 100_000;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final History HISTORY = new History();
+
+    private final BeanCatalog beanCatalog;
+    private final PropertyIndex propertyIndex;
+    private final Environment environment;
+    private final RouteIndex routeIndex;
+    private final McpSessions sessions;
+
+    ChangeFeed(BeanCatalog beanCatalog, PropertyIndex propertyIndex, Environment environment, RouteIndex routeIndex,
+               McpSessions sessions) {
+        this.beanCatalog = beanCatalog;
+        this.propertyIndex = propertyIndex;
+        this.environment = environment;
+        this.routeIndex = routeIndex;
+        this.sessions = sessions;
+        sessions.onInitialized(this::notifyClient);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // hashing every property value is not worth delaying the application for
+        Thread thread = new Thread(() -> {
+            try {
+                capture();
+            } catch (RuntimeException e) {
+                logger.debug("Failed to capture the devtools change feed", e);
+            }
+        }, "devtools-mcp-changes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Records a new version if any dataset changed since the last capture, and returns the current version.
+     */
+    long capture() {
+        return capture(current());
+    }
+
+    private Map<String, Map<String, Object>> current() {
+        Map<String, Map<String, Object>> current = new LinkedHashMap<>();
+        current.put(BEANS, beans());
+        current.put(PROPERTIES, properties());
+        current.put(ROUTES, routes());
+        return current;
+    }
+
+    private long capture(Map<String, Map<String, Object>> current) {
+        Map<String, Map<String, Long>> datasets = hashDatasets(current);
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        long version;
+        synchronized (HISTORY) {
+            version = apply(datasets, counts);
+        }
+        if (!counts.isEmpty()) {
+            notifyClients(version, counts);
+        }
+        return version;
+    }
+
+    private static Map<String, Map<String, Long>> hashDatasets(Map<String, Map<String, Object>> current) {
+        Map<String, Map<String, Long>> datasets = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> dataset : current.entrySet()) {
+            datasets.put(dataset.getKey(), hashes(dataset.getValue()));
+        }
+        return datasets;
+    }
+
+    /**
+     * Records the hashes as a new version if any dataset changed, filling {@code counts} with the changes per dataset,
+     * and returns the current version. Called with the lock on {@code HISTORY} held.
+     */
+    private static long apply(Map<String, Map<String, Long>> datasets, Map<String, Map<String, Integer>> counts) {
+        long previous = HISTORY.version;
+        long next = HISTORY.nextVersion();
+        for (Map.Entry<String, Map<String, Long>> dataset : datasets.entrySet()) {
+            int[] changes = HISTORY.dataset(dataset.getKey()).update(dataset.getValue(), next);
+            if (changes[0] + changes[1] + changes[2] > 0) {
+                counts.put(dataset.getKey(), Map.of("added", changes[0], "changed", changes[1], "removed", changes[2]));
+            }
+        }
+        if (previous == 0 || !counts.isEmpty()) {
+            HISTORY.version = next;
+        }
+        return HISTORY.version;
+    }
+
+    /**
+     * Returns the entries added, changed and removed since {@code since}, with the current content of the added and
+     * changed ones, or a resync marker when {@code since} is older than the retained history.
+     */
+    Map<String, Object> changesSince(long since) {
+        Map<String, Map<String, Object>> current = current();
+        Map<String, Map<String, Long>> datasets = hashDatasets(current);
+        Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+        Map<String, Object> result = new LinkedHashMap<>();
+        long version;
+
+        // the entries read below have to be the ones of this capture, for their content to be in current
+        synchronized (HISTORY) {
+            version = apply(datasets, counts);
+            result.put("version", version);
+            result.put("since", since);
+            if (since < HISTORY.oldestVersion || since > HISTORY.version) {
+                result.put("resync", true);
+                result.put("reason", since > HISTORY.version
+                        ? "the version is from another JVM"
+                        : "the history does not go back to this version");
+                result.put("hint", "fetch the full datasets with getSpringBeans, getSpringProperties and getHttpRoutes, then call again with the returned version");
+            } else {
+                for (Map.Entry<String, Map<String, Object>> dataset : current.entrySet()) {
+                    result.put(dataset.getKey(), HISTORY.dataset(dataset.getKey()).changesSince(since, dataset.getValue()));
+                }
+            }
+        }
+
+        if (!counts.isEmpty()) {
+            notifyClients(version, counts);
+        }
+        return result;
+    }
+
+    private Map<String, Object> beans() {
+        Map<String, Object> beans = new TreeMap<>();
+        for (BeanCatalog.Entry entry : beanCatalog.entries()) {
+            Map<String, Object> bean = new LinkedHashMap<>();
+            bean.put("type", entry.typeName != null ? entry.typeName : "unknown");
+            bean.put("scope", entry.scope);
+            bean.put("lazy", entry.lazy);
+            beans.put(entry.name, bean);
+        }
+        return beans;
+    }
+
+    private Map<String, Object> properties() {
+        Map<String, Object> properties = new TreeMap<>();
+        for (Map.Entry<String, String> entry : propertyIndex.keysWithPrefix(null, null).toList()) {
+            String value;
+            try {
+                value = environment.getProperty(entry.getKey());
+            } catch (Exception e) {
+                value = "Error resolving property: " + e.getMessage();
+            }
+            if (value != null) {
+                Map<String, Object> property = new LinkedHashMap<>();
+                property.put("value", value);
+                property.put("source", entry.getValue());
+                properties.put(entry.getKey(), property);
+            }
+        }
+        return properties;
+    }
+
+    private Map<String, Object> routes() {
+        Map<String, Object> routes = new TreeMap<>();
+        for (RouteIndex.Route route : routeIndex.routes(null)) {
+            routes.put(route.id, route.toMap());
+        }
+        return routes;
+    }
+
+    private static Map<String, Long> hashes(Map<String, Object> entries) {
+        Map<String, Long> hashes = new HashMap<>(entries.size() * 2);
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            hashes.put(entry.getKey(), hash(entry.getValue()));
+        }
+        return hashes;
+    }
+
+    /**
+     * 64-bit FNV-1a of the entry's string form, which is stable for the maps and collections entries are made of.
+     */
+    private static long hash(Object value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : String.valueOf(value).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private void notifyClients(long version, Map<String, Map<String, Integer>> counts) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("version", version);
+        data.put("changes", counts);
+        data.put("hint", "call getChangesSince with the last version you saw");
+        send(null, data);
+    }
+
+    /**
+     * Tells a client that just initialized the current version, which it compares with the last one it saw.
+     */
+    private void notifyClient(String sessionId) {
+        long version;
+        synchronized (HISTORY) {
+            version = HISTORY.version;
+        }
+        if (version == 0) {
+            // not captured yet, the client is notified once it is
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("version", version);
+        data.put("hint", "call getChangesSince with the last version you saw if it is older");
+        send(sessionId, data);
+    }
+
+    private void send(String sessionId, Map<String, Object> data) {
+        try {
+            var notification = new McpSchema.LoggingMessageNotification(McpSchema.LoggingLevel.INFO, NOTIFICATION_LOGGER,
+                    MAPPER.writeValueAsString(data));
+            sessions.send(sessionId, MAPPER.writeValueAsString(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                    McpSchema.METHOD_NOTIFICATION_MESSAGE, notification)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.debug("Failed to notify MCP clients of changes", e);
+        }
+    }
+
+    private static final class History {
+        final Map<String, Dataset> datasets = new HashMap<>();
+        long version;
+        long oldestVersion;
+
+        long nextVersion() {
+            // versions of a later JVM are always greater
+            return version == 0 ? System.currentTimeMillis() : version + 1;
+        }
+
+        Dataset dataset(String name) {
+            return datasets.computeIfAbsent(name, key -> new Dataset(this));
+        }
+    }
+
+    private static final class Dataset {
+        final History history;
+        final Map<String, Entry> entries = new HashMap<>();
+        final Map<String, Tombstone> tombstones = new HashMap<>();
+
+        Dataset(History history) {
+            this.history = history;
+        }
+
+        /**
+         * Applies a new capture, returning the number of added, changed and removed entries.
+         */
+        int[] update(Map<String, Long> hashes, long version) {
+            boolean first = history.version == 0;
+            if (first) {
+                history.oldestVersion = version;
+            }
+            int added = 0;
+            int changed = 0;
+            int removed = 0;
+            for (Map.Entry<String, Long> hash : hashes.entrySet()) {
+                Entry entry = entries.get(hash.getKey());
+                if (entry == null) {
+                    Tombstone tombstone = tombstones.remove(hash.getKey());
+                    // a key that comes back was changed rather than added for whoever saw it before its removal
+                    entries.put(hash.getKey(), new Entry(hash.getValue(), tombstone != null ? tombstone.createdVersion : version, version));
+                    if (!first) {
+                        added++;
+                    }
+                } else if (entry.hash != hash.getValue()) {
+                    entry.hash = hash.getValue();
+                    entry.modifiedVersion = version;
+                    changed++;
+                }
+            }
+            for (Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Entry> entry = iterator.next();
+                if (!hashes.containsKey(entry.getKey())) {
+                    iterator.remove();
+                    tombstones.put(entry.getKey(), new Tombstone(entry.getValue().createdVersion, version));
+                    removed++;
+                }
+            }
+            if (tombstones.size() > MAX_TOMBSTONES) {
+                // forget the removals, and with them the versions they would be reported for
+                tombstones.clear();
+                history.oldestVersion = version;
+            }
+            return new int[] {added, changed, removed};
+        }
+
+        Map<String, Object> changesSince(long since, Map<String, Object> current) {
+            Map<String, Object> added = new TreeMap<>();
+            Map<String, Object> changed = new TreeMap<>();
+            List<String> removed = new ArrayList<>();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (entry.getValue().createdVersion > since) {
+                    added.put(entry.getKey(), current.get(entry.getKey()));
+                } else if (entry.getValue().modifiedVersion > since) {
+                    changed.put(entry.getKey(), current.get(entry.getKey()));
+                }
+            }
+            for (Map.Entry<String, Tombstone> tombstone : tombstones.entrySet()) {
+                if (tombstone.getValue().removedVersion > since && tombstone.getValue().createdVersion <= since) {
+                    removed.add(tombstone.getKey());
+                }
+            }
+            removed.sort(null);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("added", added);
+            result.put("changed", changed);
+            result.put("removed", removed);
+            return result;
+        }
+    }
+
+    private static final class Entry {
+        long hash;
+        final long createdVersion;
+        long modifiedVersion;
+
+        Entry(long hash, long createdVersion, long modifiedVersion) {
+            this.hash = hash;
+            this.createdVersion = createdVersion;
+            this.modifiedVersion = modifiedVersion;
+        }
+    }
+
+    private static final class Tombstone {
+        final long createdVersion;
+        final long removedVersion;
+
+        Tombstone(long createdVersion, long removedVersion) {
+            this.createdVersion = createdVersion;
+            this.removedVersion = removedVersion;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Inventory of the artifacts on the classpath, one per jar, read from the {@code META-INF/maven/**&#47;pom.properties}
+ * and manifest of each jar, including the jars nested in a Spring Boot fat jar. Jars, and the jars nested in each,
+ * are read in parallel and the result for each jar is cached by path, size and modification time.
+ */
+class DependencyIndex {
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final String MAVEN_PREFIX = "META-INF/maven/";
+    private static final String POM_PROPERTIES = "/pom.properties";
+    private static final String[] NESTED_LIB_PREFIXES = {"BOOT-INF/lib/", "WEB-INF/lib/", "WEB-INF/lib-provided/"};
+
+    private static final Pattern VERSIONED_FILE_NAME = Pattern.compile("^(.+?)-(\\d[^-]*(?:-[^-]+)*?)\\.jar$");
+
+    private final Map<String, CachedJar> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Returns one row per artifact found on the classpath, sorted by group and artifact.
+     */
+    List<Map<String, String>> artifacts() {
+        List<File> jars = new ArrayList<>();
+        for (String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (path.endsWith(".jar") || path.endsWith(".war")) {
+                File file = new File(path);
+                if (file.isFile()) {
+                    jars.add(file);
+                }
+            }
+        }
+
+        Map<String, Map<String, String>> artifacts = new LinkedHashMap<>();
+        jars.parallelStream()
+                .flatMap(jar -> artifactsOf(jar).stream())
+                .sorted(Comparator.comparing((Artifact artifact) -> Objects.toString(artifact.groupId, ""))
+                        .thenComparing(artifact -> artifact.artifactId, Comparator.nullsLast(Comparator.naturalOrder())))
+                .forEachOrdered(artifact -> artifacts.putIfAbsent(artifact.groupId + ":" + artifact.artifactId, artifact.toMap()));
+        return new ArrayList<>(artifacts.values());
+    }
+
+    private List<Artifact> artifactsOf(File jar) {
+        String path = jar.getAbsolutePath();
+        long lastModified = jar.lastModified();
+        long length = jar.length();
+
+        CachedJar cached = cache.get(path);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.artifacts;
+        }
+
+        List<Artifact> artifacts = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar)) {
+            Manifest manifest = null;
+            List<Properties> poms = new ArrayList<>();
+            List<ZipEntry> nestedJars = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.equals(MANIFEST)) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        manifest = new Manifest(in);
+                    }
+                } else if (isPomProperties(name)) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        poms.add(load(in));
+                    }
+                } else if (isNestedJar(name)) {
+                    nestedJars.add(entry);
+                }
+            }
+            artifacts.addAll(readNested(jar, zip, nestedJars));
+            artifacts.add(toArtifact(jar.getName(), path, manifest, poms));
+        } catch (IOException | UncheckedIOException e) {
+            artifacts.add(new Artifact(null, jar.getName(), null, jar.getName(), "unreadable: " + e.getMessage()));
+        }
+
+        List<Artifact> result = List.copyOf(artifacts);
+        cache.put(path, new CachedJar(lastModified, length, result));
+        return result;
+    }
+
+    /**
+     * Boot stores the nested jars uncompressed so that they can be read in place: the central directory of each is
+     * read at its offset in the fat jar, and only its manifest and {@code pom.properties} entries are read, in
+     * parallel across the nested jars. A nested jar that is compressed, or that {@link ZipCentralDirectory} does not
+     * support, is streamed instead.
+     */
+    private static List<Artifact> readNested(File jar, ZipFile zip, List<ZipEntry> nestedJars) throws IOException {
+        if (nestedJars.isEmpty()) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            Map<String, ZipCentralDirectory.Entry> stored = new HashMap<>();
+            ZipCentralDirectory directory = null;
+            try {
+                directory = ZipCentralDirectory.read(channel, 0, channel.size());
+                for (ZipCentralDirectory.Entry entry : directory.entries()) {
+                    if (entry.method() == ZipCentralDirectory.STORED && isNestedJar(entry.name())) {
+                        stored.put(entry.name(), entry);
+                    }
+                }
+            } catch (ZipException e) {
+                // every nested jar is streamed
+            }
+            ZipCentralDirectory fatJar = directory;
+            return nestedJars.parallelStream().map(entry -> {
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                try {
+                    ZipCentralDirectory.Entry inPlace = stored.get(entry.getName());
+                    if (inPlace != null) {
+                        try {
+                            return readInPlace(fatJar.nested(inPlace), fileName);
+                        } catch (ZipException e) {
+                            // streamed below
+                        }
+                    }
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        return readStreamed(in, fileName);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toList();
+        }
+    }
+
+    private static Artifact readInPlace(ZipCentralDirectory nested, String fileName) throws IOException {
+        Manifest manifest = null;
+        List<Properties> poms = new ArrayList<>();
+        for (ZipCentralDirectory.Entry entry : nested.entries()) {
+            if (entry.name().equals(MANIFEST)) {
+                manifest = new Manifest(new ByteArrayInputStream(nested.content(entry)));
+            } else if (isPomProperties(entry.name())) {
+                poms.add(load(new ByteArrayInputStream(nested.content(entry))));
+            }
+        }
+        return toArtifact(fileName, null, manifest, poms);
+    }
+
+    private static Artifact readStreamed(InputStream in, String fileName) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        Manifest manifest = null;
+        List<Properties> poms = new ArrayList<>();
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (name.equals(MANIFEST)) {
+                manifest = new Manifest(zip);
+            } else if (isPomProperties(name)) {
+                poms.add(load(zip));
+            }
+        }
+        return toArtifact(fileName, null, manifest, poms);
+    }
+
+    private static boolean isPomProperties(String name) {
+        return name.startsWith(MAVEN_PREFIX) && name.endsWith(POM_PROPERTIES);
+    }
+
+    private static boolean isNestedJar(String name) {
+        if (!name.endsWith(".jar")) {
+            return false;
+        }
+        for (String prefix : NESTED_LIB_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Properties load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        return properties;
+    }
+
+    /**
+     * Picks the coordinates of a jar: the {@code pom.properties} matching the file name (shaded jars carry several),
+     * then the repository layout of the path, then the manifest and file name.
+     */
+    private static Artifact toArtifact(String fileName, String path, Manifest manifest, List<Properties> poms) {
+        Properties pom = null;
+        for (Properties candidate : poms) {
+            if (fileName.startsWith(candidate.getProperty("artifactId", "") + "-" + candidate.getProperty("version", ""))) {
+                pom = candidate;
+                break;
+            }
+        }
+        if (pom == null && poms.size() == 1) {
+            pom = poms.get(0);
+        }
+
+        String title = null;
+        if (manifest != null) {
+            Attributes attributes = manifest.getMainAttributes();
+            title = firstNonNull(attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE), attributes.getValue("Bundle-Name"),
+                    attributes.getValue(Attributes.Name.SPECIFICATION_TITLE));
+        }
+
+        if (pom != null) {
+            return new Artifact(pom.getProperty("groupId"), pom.getProperty("artifactId"), pom.getProperty("version"), fileName, title);
+        }
+
+        Artifact fromPath = path != null ? fromRepositoryPath(path, fileName, title) : null;
+        if (fromPath != null) {
+            return fromPath;
+        }
+
+        String version = null;
+        if (manifest != null) {
+            Attributes attributes = manifest.getMainAttributes();
+            version = firstNonNull(attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION), attributes.getValue("Bundle-Version"),
+                    attributes.getValue(Attributes.Name.SPECIFICATION_VERSION));
+        }
+        String artifactId = fileName;
+        Matcher matcher = VERSIONED_FILE_NAME.matcher(fileName);
+        if (matcher.matches()) {
+            artifactId = matcher.group(1);
+            version = version != null ? version : matcher.group(2);
+        }
+        return new Artifact(null, artifactId, version, fileName, title);
+    }
+
+    /**
+     * Reads the coordinates from a Gradle ({@code files-2.1/group/artifact/version/hash/file.jar}) or Maven
+     * ({@code repository/g/r/o/u/p/artifact/version/file.jar}) cache path.
+     */
+    private static Artifact fromRepositoryPath(String path, String fileName, String title) {
+        String[] segments = path.replace(File.separatorChar, '/').split("/");
+        int n = segments.length;
+        for (int i = 0; i < n; i++) {
+            if (segments[i].equals("files-2.1") && i + 5 == n - 1) {
+                return new Artifact(segments[i + 1], segments[i + 2], segments[i + 3], fileName, title);
+            }
+        }
+        if (n >= 4 && fileName.startsWith(segments[n - 3] + "-" + segments[n - 2])) {
+            for (int i = 0; i < n - 3; i++) {
+                if (segments[i].equals("repository")) {
+                    String groupId = String.join(".", List.of(segments).subList(i + 1, n - 3));
+                    if (!groupId.isEmpty()) {
+                        return new Artifact(groupId, segments[n - 3], segments[n - 2], fileName, title);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String firstNonNull(String... values) {
+        for (String value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private record CachedJar(long lastModified, long length, List<Artifact> artifacts) {
+    }
+
+    private record Artifact(String groupId, String artifactId, String version, String jar, String name) {
+
+        Map<String, String> toMap() {
+            Map<String, String> dependency = new LinkedHashMap<>();
+            if (groupId != null) {
+                dependency.put("groupId", groupId);
+            }
+            dependency.put("artifactId", artifactId);
+            dependency.put("version", version != null ? version : "unknown");
+            dependency.put("jar", jar);
+            if (name != null) {
+                dependency.put("name", name);
+            }
+            return dependency;
+        }
+    }
+}
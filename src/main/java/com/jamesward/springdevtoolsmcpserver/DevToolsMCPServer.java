@@ -2,14 +2,18 @@ package com.jamesward.springdevtoolsmcpserver;
 
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.env.Environment;
-import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
-import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
 
 /**
  * MCP Server for Spring developers that provides tools to query information about a running Spring application.
@@ -22,26 +26,48 @@ public class DevToolsMCPServer {
 
     static class StandardTools {
 
+        private static final int DEFAULT_PAGE_SIZE = 500;
+        static final String FORMAT_DESCRIPTION = "optional 'rows' (default) for one object per row, or 'columnar' for the column names once and one array of values per row";
+        private static final String[] BEAN_COLUMNS = {"name", "type", "scope", "lazy"};
+        private static final String[] PROPERTY_COLUMNS = {"key", "value", "source"};
+
         private final ApplicationContext applicationContext;
         private final Environment environment;
-
-        protected StandardTools(ApplicationContext applicationContext, Environment environment) {
+        private final BeanCatalog beanCatalog;
+        private final PropertyIndex propertyIndex;
+        private final AutoConfigurationReport autoConfigurationReport;
+        private final DependencyIndex dependencyIndex = new DependencyIndex();
+        private final long maxResponseBytes;
+
+        protected StandardTools(ApplicationContext applicationContext, Environment environment, BeanCatalog beanCatalog,
+                                PropertyIndex propertyIndex, AutoConfigurationReport autoConfigurationReport, long maxResponseBytes) {
             this.applicationContext = applicationContext;
             this.environment = environment;
+            this.beanCatalog = beanCatalog;
+            this.propertyIndex = propertyIndex;
+            this.autoConfigurationReport = autoConfigurationReport;
+            this.maxResponseBytes = maxResponseBytes;
         }
 
-        @Tool(description = "Gets all Spring beans registered in the application context")
-        public Map<String, String> getSpringBeans() {
-            Map<String, String> result = new HashMap<>();
-            for (String beanName : applicationContext.getBeanDefinitionNames()) {
-                try {
-                    Object bean = applicationContext.getBean(beanName);
-                    result.put(beanName, bean.getClass().getName());
-                } catch (Exception e) {
-                    result.put(beanName, "Error loading bean: " + e.getMessage());
-                }
+        @Tool(description = "Gets the Spring beans registered in the application context, one page at a time, without instantiating them",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getSpringBeans(
+                @ToolParam(description = "optional case-insensitive substring of the bean name", required = false) String nameFilter,
+                @ToolParam(description = "optional fully qualified type the beans must be assignable to, or a substring of the bean type", required = false) String typeFilter,
+                @ToolParam(description = "optional package prefix of the bean type (e.g., 'org.springframework.web')", required = false) String packageFilter,
+                @ToolParam(description = "optional cursor returned as 'nextCursor' by a previous call", required = false) String cursor,
+                @ToolParam(description = "optional maximum number of beans to return (default 500)", required = false) Integer limit,
+                @ToolParam(description = FORMAT_DESCRIPTION, required = false) String format) {
+            ToolResponse.Format responseFormat = ToolResponse.Format.parse(format);
+            if (responseFormat == null) {
+                return unknownFormat(format);
             }
-            return result;
+            BeanCatalog.Page page = beanCatalog.query(nameFilter, typeFilter, packageFilter, cursor, limit != null && limit > 0 ? limit : DEFAULT_PAGE_SIZE);
+
+            Iterator<Object[]> rows = page.entries.stream()
+                    .map(entry -> new Object[] {entry.name, entry.typeName != null ? entry.typeName : "unknown", entry.scope, entry.lazy})
+                    .iterator();
+            return ToolResponse.table(maxResponseBytes, responseFormat, BEAN_COLUMNS, 0, rows, page.nextCursor);
         }
 
         @Tool(description = "Gets details about a specific Spring bean by name")
@@ -107,33 +133,15 @@ public class DevToolsMCPServer {
             return healthInfo;
         }
 
-        @Tool(description = "Gets information about application dependencies")
+        @Tool(description = "Gets the artifacts (group, artifact, version) of the jars on the application classpath")
         public List<Map<String, String>> getDependencyInfo() {
-            List<Map<String, String>> dependencies = new ArrayList<>();
-
             try {
-                Package[] packages = Package.getPackages();
-                for (Package pkg : packages) {
-                    String specTitle = pkg.getSpecificationTitle();
-                    String specVersion = pkg.getSpecificationVersion();
-                    String implTitle = pkg.getImplementationTitle();
-                    String implVersion = pkg.getImplementationVersion();
-
-                    if ((specTitle != null && specVersion != null) || (implTitle != null && implVersion != null)) {
-                        Map<String, String> dependency = new HashMap<>();
-                        dependency.put("name", (implTitle != null ? implTitle : (specTitle != null ? specTitle : pkg.getName())));
-                        dependency.put("version", (implVersion != null ? implVersion : (specVersion != null ? specVersion : "unknown")));
-                        dependency.put("package", pkg.getName());
-                        dependencies.add(dependency);
-                    }
-                }
+                return dependencyIndex.artifacts();
             } catch (Exception e) {
                 Map<String, String> error = new HashMap<>();
                 error.put("error", "Failed to get dependency info: " + e.getMessage());
-                dependencies.add(error);
+                return Collections.singletonList(error);
             }
-
-            return dependencies;
         }
 
         @Tool(description = "Gets a specific Spring property value by key")
@@ -141,253 +149,671 @@ public class DevToolsMCPServer {
             return environment.getProperty(key);
         }
 
-        @Tool(description = "Gets all Spring properties with optional prefix filter")
-        public Map<String, String> getSpringProperties(@ToolParam(description = "optional prefix to filter properties (e.g., 'server.', 'spring.')", required = false) String prefix) {
-            Map<String, String> properties = new HashMap<>();
-
-            if (environment instanceof org.springframework.core.env.AbstractEnvironment) {
-                org.springframework.core.env.AbstractEnvironment abstractEnv = (org.springframework.core.env.AbstractEnvironment) environment;
-                for (org.springframework.core.env.PropertySource<?> propertySource : abstractEnv.getPropertySources()) {
-                    if (propertySource instanceof org.springframework.core.env.EnumerablePropertySource) {
-                        org.springframework.core.env.EnumerablePropertySource<?> enumerable = (org.springframework.core.env.EnumerablePropertySource<?>) propertySource;
-                        for (String key : enumerable.getPropertyNames()) {
-                            if (prefix == null || key.startsWith(prefix)) {
-                                String value = environment.getProperty(key);
-                                if (value != null) {
-                                    properties.put(key, value);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        @Tool(description = "Gets all Spring properties with optional prefix filter, with the property source each value comes from",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getSpringProperties(
+                @ToolParam(description = "optional prefix to filter properties (e.g., 'server.', 'spring.')", required = false) String prefix,
+                @ToolParam(description = "optional cursor returned as 'nextCursor' by a previous call", required = false) String cursor,
+                @ToolParam(description = FORMAT_DESCRIPTION, required = false) String format) {
+            return properties(propertyIndex.keysWithPrefix(prefix, cursor), format);
+        }
+
+        @Tool(description = "Searches Spring properties whose key contains the given text, ignoring case",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object searchSpringProperties(
+                @ToolParam(description = "text the property key must contain (e.g., 'port', 'datasource')") String query,
+                @ToolParam(description = "optional cursor returned as 'nextCursor' by a previous call", required = false) String cursor,
+                @ToolParam(description = FORMAT_DESCRIPTION, required = false) String format) {
+            return properties(propertyIndex.keysContaining(query, cursor), format);
+        }
 
-            return properties;
+        /**
+         * Values are resolved as rows are written, so only the properties that fit in the response are resolved.
+         */
+        private Object properties(Stream<Map.Entry<String, String>> keysToSources, String format) {
+            ToolResponse.Format responseFormat = ToolResponse.Format.parse(format);
+            if (responseFormat == null) {
+                return unknownFormat(format);
+            }
+            Iterator<Object[]> rows = keysToSources
+                    .map(entry -> new Object[] {entry.getKey(), resolveProperty(entry.getKey()), entry.getValue()})
+                    .filter(row -> row[1] != null)
+                    .iterator();
+            return ToolResponse.table(maxResponseBytes, responseFormat, PROPERTY_COLUMNS, 0, rows, null);
         }
 
-        @Tool(description = "Gets information about auto-configuration in the Spring application")
-        public Map<String, Object> getAutoConfigurationInfo() {
-            Map<String, Object> autoConfigInfo = new HashMap<>();
+        static Map<String, Object> unknownFormat(String format) {
+            return Collections.singletonMap("error", "Unknown format: " + format + " (expected 'rows' or 'columnar')");
+        }
 
+        private String resolveProperty(String key) {
             try {
-                // Try to get the auto-configuration report bean if available (Spring Boot 2.x)
-                try {
-                    Object autoConfigurationReport = applicationContext.getBean("autoConfigurationReport");
-                    if (autoConfigurationReport != null) {
-                        // Use reflection to access the report data
-                        Class<?> reportClass = autoConfigurationReport.getClass();
-                        Object positiveMatches = reportClass.getMethod("getPositiveMatches").invoke(autoConfigurationReport);
-                        Object negativeMatches = reportClass.getMethod("getNegativeMatches").invoke(autoConfigurationReport);
-
-                        autoConfigInfo.put("positiveMatches", positiveMatches);
-                        autoConfigInfo.put("negativeMatches", negativeMatches);
-                    }
-                } catch (Exception e) {
-                    // Auto-configuration report not available in this format
-                }
+                return environment.getProperty(key);
+            } catch (Exception e) {
+                return "Error resolving property: " + e.getMessage();
+            }
+        }
 
-                // For Spring Boot 3.x, try to get the ConditionEvaluationReport
+        @Tool(description = "Gets information about auto-configuration in the Spring application: condition evaluations, exclusions and @Configuration beans",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getAutoConfigurationInfo(
+                @ToolParam(description = "optional 'positive' or 'negative' to only return matching or non-matching conditions (default both)", required = false) String matches,
+                @ToolParam(description = "optional fully qualified class name to only return the conditions of that configuration class", required = false) String sourceClass) {
+            AutoConfigurationReport.Matches filter = AutoConfigurationReport.Matches.ALL;
+            if (matches != null && !matches.isEmpty()) {
                 try {
-                    Class<?> reportClass = Class.forName("org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport");
-                    Object reportInstance = applicationContext.getBean(reportClass);
-
-                    if (reportInstance != null) {
-                        // Get unconditional classes
-                        java.lang.reflect.Method getUnconditionalClassesMethod = reportClass.getMethod("getUnconditionalClasses");
-                        Set<?> unconditionalClasses = (Set<?>) getUnconditionalClassesMethod.invoke(reportInstance);
-                        autoConfigInfo.put("unconditionalClasses", unconditionalClasses);
-
-                        // Get condition evaluations
-                        java.lang.reflect.Method getConditionAndOutcomesBySourceMethod =
-                                reportClass.getMethod("getConditionAndOutcomesBySource");
-                        Map<?, ?> conditionAndOutcomesBySource =
-                                (Map<?, ?>) getConditionAndOutcomesBySourceMethod.invoke(reportInstance);
-
-                        Map<String, Object> conditionEvaluations = new HashMap<>();
-                        for (Map.Entry<?, ?> entry : conditionAndOutcomesBySource.entrySet()) {
-                            String source = entry.getKey().toString();
-                            Object outcomes = entry.getValue();
-
-                            // Extract outcome information
-                            List<Map<String, String>> outcomeDetails = new ArrayList<>();
-                            if (outcomes instanceof Collection<?>) {
-                                for (Object outcome : (Collection<?>) outcomes) {
-                                    Map<String, String> outcomeInfo = new HashMap<>();
-                                    // Get condition information
-                                    java.lang.reflect.Method getConditionMethod = outcome.getClass().getMethod("getCondition");
-                                    Object condition = getConditionMethod.invoke(outcome);
-                                    outcomeInfo.put("condition", condition.toString());
-
-                                    // Get outcome information
-                                    java.lang.reflect.Method getOutcomeMethod = outcome.getClass().getMethod("getOutcome");
-                                    Object outcomeResult = getOutcomeMethod.invoke(outcome);
-                                    outcomeInfo.put("outcome", outcomeResult.toString());
-
-                                    outcomeDetails.add(outcomeInfo);
-                                }
-                            }
-                            conditionEvaluations.put(source, outcomeDetails);
-                        }
-                        autoConfigInfo.put("conditionEvaluations", conditionEvaluations);
-
-                        // Get exclusions
-                        java.lang.reflect.Method getExclusionsMethod = reportClass.getMethod("getExclusions");
-                        Set<?> exclusions = (Set<?>) getExclusionsMethod.invoke(reportInstance);
-                        autoConfigInfo.put("exclusions", exclusions);
-                    }
-                } catch (Exception e) {
-                    // ConditionEvaluationReport not available or reflection failed
-                    autoConfigInfo.put("error", "Could not access ConditionEvaluationReport: " + e.getMessage());
+                    filter = AutoConfigurationReport.Matches.valueOf(matches.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    return Collections.singletonMap("error", "Unknown matches filter: " + matches + " (expected 'positive' or 'negative')");
                 }
+            }
+            return ToolResponse.tree(maxResponseBytes,
+                    autoConfigurationReport.toMap(filter, sourceClass != null && !sourceClass.isEmpty() ? sourceClass : null),
+                    "filter with matches='positive' or 'negative', or with a sourceClass");
+        }
+    }
 
-                // Get all beans with @Configuration annotation
-                Map<String, Object> configurationBeans = new HashMap<>();
-                for (String beanName : applicationContext.getBeanDefinitionNames()) {
-                    try {
-                        Object bean = applicationContext.getBean(beanName);
-                        Class<?> beanClass = bean.getClass();
-
-                        // Check if the bean class has @Configuration annotation
-                        if (beanClass.isAnnotationPresent(org.springframework.context.annotation.Configuration.class)) {
-                            Map<String, Object> configInfo = new HashMap<>();
-                            configInfo.put("class", beanClass.getName());
-
-                            // Check for @ConditionalOn* annotations
-                            List<String> conditions = new ArrayList<>();
-                            for (java.lang.annotation.Annotation annotation : beanClass.getAnnotations()) {
-                                String annotationName = annotation.annotationType().getName();
-                                if (annotationName.contains("Conditional")) {
-                                    conditions.add(annotationName);
-                                }
-                            }
-                            configInfo.put("conditions", conditions);
-
-                            // Check if it's an auto-configuration
-                            boolean isAutoConfig = beanClass.isAnnotationPresent(org.springframework.boot.autoconfigure.AutoConfiguration.class) ||
-                                    beanClass.isAnnotationPresent(org.springframework.boot.autoconfigure.EnableAutoConfiguration.class);
-                            configInfo.put("isAutoConfiguration", isAutoConfig);
-
-                            configurationBeans.put(beanName, configInfo);
-                        }
-                    } catch (Exception e) {
-                        // Skip beans that can't be analyzed
-                    }
+    static class WebMvcTools {
+        private final RouteIndex routeIndex;
+        private final long maxResponseBytes;
+
+        protected WebMvcTools(RouteIndex routeIndex, long maxResponseBytes) {
+            this.routeIndex = routeIndex;
+            this.maxResponseBytes = maxResponseBytes;
+        }
+
+        @Tool(description = "Gets all HTTP routes registered in the Spring application: annotated controllers and functional routes",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getHttpRoutes(
+                @ToolParam(description = "optional prefix the route pattern must start with (e.g., '/api/')", required = false) String pathPrefix,
+                @ToolParam(description = "optional cursor returned as 'nextCursor' by a previous call", required = false) String cursor,
+                @ToolParam(description = StandardTools.FORMAT_DESCRIPTION, required = false) String format) {
+            return routes(routeIndex, RouteIndex.WEBMVC, pathPrefix, cursor, format, maxResponseBytes);
+        }
+    }
+
+    static class WebFluxTools {
+        private final RouteIndex routeIndex;
+        private final long maxResponseBytes;
+
+        protected WebFluxTools(RouteIndex routeIndex, long maxResponseBytes) {
+            this.routeIndex = routeIndex;
+            this.maxResponseBytes = maxResponseBytes;
+        }
+
+        @Tool(description = "Gets all WebFlux routes registered in the Spring application: annotated controllers and RouterFunction routes",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getWebFluxRoutes(
+                @ToolParam(description = "optional prefix the route pattern must start with (e.g., '/api/')", required = false) String pathPrefix,
+                @ToolParam(description = "optional cursor returned as 'nextCursor' by a previous call", required = false) String cursor,
+                @ToolParam(description = StandardTools.FORMAT_DESCRIPTION, required = false) String format) {
+            return routes(routeIndex, RouteIndex.WEBFLUX, pathPrefix, cursor, format, maxResponseBytes);
+        }
+    }
+
+    private static final String[] ROUTE_COLUMNS = {"pattern", "methods", "consumes", "produces", "conditions", "handler", "kind", "source"};
+
+    /**
+     * The routes are sorted by {@link RouteIndex.Route#sortKey}, which is unique, so the cursor is the sort key of the
+     * last route returned, carried by each row after the columns it shows.
+     */
+    private static Object routes(RouteIndex routeIndex, String framework, String pathPrefix, String cursor, String format,
+                                 long maxResponseBytes) {
+        ToolResponse.Format responseFormat = ToolResponse.Format.parse(format);
+        if (responseFormat == null) {
+            return StandardTools.unknownFormat(format);
+        }
+        if (!routeIndex.errors().isEmpty()) {
+            return Collections.singletonMap("error", String.join("; ", routeIndex.errors()));
+        }
+
+        String prefix = pathPrefix != null && !pathPrefix.isEmpty() ? pathPrefix : null;
+        String after = cursor != null && !cursor.isEmpty() ? cursor : null;
+        Iterator<Object[]> rows = routeIndex.routes(framework).stream()
+                .filter(route -> prefix == null || (route.pattern != null && route.pattern.startsWith(prefix)))
+                .filter(route -> after == null || route.sortKey.compareTo(after) > 0)
+                .map(route -> new Object[] {route.pattern, route.methods, nullIfEmpty(route.consumes), nullIfEmpty(route.produces),
+                        nullIfEmpty(route.conditions), route.handler, route.kind, route.source, route.sortKey})
+                .iterator();
+        return ToolResponse.table(maxResponseBytes, responseFormat, ROUTE_COLUMNS, ROUTE_COLUMNS.length, rows, null);
+    }
+
+    private static Set<String> nullIfEmpty(Set<String> values) {
+        return values.isEmpty() ? null : values;
+    }
+
+    static class RouteTools {
+        private final RouteIndex routeIndex;
+        private final RouteLatencies routeLatencies;
+
+        /**
+         * @param routeLatencies {@code null} when request latencies are not recorded
+         */
+        protected RouteTools(RouteIndex routeIndex, RouteLatencies routeLatencies) {
+            this.routeIndex = routeIndex;
+            this.routeLatencies = routeLatencies;
+        }
+
+        @Tool(description = "Gets request latency percentiles (p50, p95, p99, max) and throughput per route pattern, HTTP method and status class, for the current or previous recording window")
+        public Map<String, Object> getRouteLatencies(
+                @ToolParam(description = "optional 'current' (default) or 'previous' window", required = false) String window,
+                @ToolParam(description = "optional true to start a new window after returning the current one", required = false) Boolean reset,
+                @ToolParam(description = "optional prefix the route pattern must start with (e.g., '/api/')", required = false) String pathPrefix,
+                @ToolParam(description = "optional 'count' (default) to sort by request count, or 'p99' to sort by p99 latency", required = false) String sort,
+                @ToolParam(description = "optional maximum number of rows, default 50", required = false) Integer top) {
+            if (routeLatencies == null) {
+                return Collections.singletonMap("error", "Request latencies are not recorded, set devtools.mcp.route-latency.enabled=true");
+            }
+
+            RouteLatencies.Window selected;
+            if (window == null || window.isBlank() || window.equalsIgnoreCase("current")) {
+                selected = Boolean.TRUE.equals(reset) ? routeLatencies.reset() : routeLatencies.current();
+            } else if (window.equalsIgnoreCase("previous")) {
+                selected = routeLatencies.previous();
+                if (selected == null) {
+                    return Collections.singletonMap("error", "There is no previous window, call with reset=true to start one");
                 }
-                autoConfigInfo.put("configurationBeans", configurationBeans);
+            } else {
+                return Collections.singletonMap("error", "Unknown window: " + window + " (expected 'current' or 'previous')");
+            }
+            return selected.toMap(pathPrefix != null && !pathPrefix.isEmpty() ? pathPrefix : null,
+                    "p99".equalsIgnoreCase(sort), top != null && top > 0 ? top : 50);
+        }
 
-            } catch (Exception e) {
-                autoConfigInfo.put("error", "Failed to get auto-configuration info: " + e.getMessage());
+        @Tool(description = "Finds the handler that serves an HTTP request, with the URI variables it extracts, without listing all routes")
+        public Map<String, Object> matchRoute(
+                @ToolParam(description = "HTTP method of the request (e.g., 'GET'), or empty for any method", required = false) String method,
+                @ToolParam(description = "path of the request, relative to the context path (e.g., '/api/users/42')") String path) {
+            if (path == null || path.isEmpty()) {
+                return Collections.singletonMap("error", "A path is required");
             }
 
-            return autoConfigInfo;
+            RouteIndex.Match match = routeIndex.match(method, path);
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (match.matched.isEmpty()) {
+                result.put("handler", null);
+            } else {
+                RouteIndex.Matched best = match.matched.get(0);
+                result.put("handler", best.route.handler);
+                result.put("route", best.route.toMap());
+                result.put("uriVariables", best.uriVariables);
+                if (match.matched.size() > 1) {
+                    // conditions such as consumes, produces or headers may select one of these instead
+                    List<Map<String, Object>> alternatives = new ArrayList<>();
+                    for (RouteIndex.Matched other : match.matched.subList(1, match.matched.size())) {
+                        alternatives.add(other.route.toMap());
+                    }
+                    result.put("alternatives", alternatives);
+                }
+            }
+            if (match.matched.isEmpty() && !match.otherMethods.isEmpty()) {
+                Set<String> allowedMethods = new TreeSet<>();
+                for (RouteIndex.Matched other : match.otherMethods) {
+                    allowedMethods.addAll(other.route.methods);
+                }
+                result.put("allowedMethods", allowedMethods);
+            }
+            if (!routeIndex.errors().isEmpty()) {
+                result.put("errors", routeIndex.errors());
+            }
+            return result;
         }
     }
 
-    static class WebMvcTools {
-        private final ApplicationContext applicationContext;
+    static class TelemetryTools {
+        private final RuntimeSampler runtimeSampler;
 
-        protected WebMvcTools(ApplicationContext applicationContext) {
-            this.applicationContext = applicationContext;
+        protected TelemetryTools(RuntimeSampler runtimeSampler) {
+            this.runtimeSampler = runtimeSampler;
         }
 
-        @Tool(description = "Gets all HTTP routes registered in the Spring application")
-        public List<Map<String, Object>> getHttpRoutes() {
-            List<Map<String, Object>> routes = new ArrayList<>();
+        @Tool(description = "Gets the history of JVM runtime metrics sampled in the background (memory, memory pools, GC, threads, CPU load, class loading) as numeric series with min, max, mean and percentiles")
+        public Map<String, Object> getRuntimeTelemetry(
+                @ToolParam(description = "optional comma separated prefixes of the series to return (e.g., 'heap,gc,cpu'), default all", required = false) String metrics,
+                @ToolParam(description = "optional time window ending at the last sample (e.g., '5m', '30s'), default the whole history", required = false) String window,
+                @ToolParam(description = "optional number of points per series, 0 for summaries only (default 60)", required = false) Integer points) {
+            Duration duration = null;
+            if (window != null && !window.isBlank()) {
+                try {
+                    duration = DurationStyle.detectAndParse(window.trim());
+                } catch (IllegalArgumentException e) {
+                    return Collections.singletonMap("error", "Invalid window: " + window + " (expected a duration such as '5m' or '30s')");
+                }
+            }
+            return runtimeSampler.toMap(metrics, duration, points != null ? points : 60);
+        }
+    }
 
-            var mappings = applicationContext.getBeansOfType(RequestMappingHandlerMapping.class);
+    static class LogTools {
+        private static final String[] LOG_COLUMNS = {"sequence", "time", "level", "logger", "thread", "message", "throwable"};
 
-            mappings.values().forEach(requestMappingHandlerMapping -> {
-                try {
-                    Map<RequestMappingInfo, HandlerMethod> handlerMethods = requestMappingHandlerMapping.getHandlerMethods();
+        private final LogCapture logCapture;
+        private final long maxResponseBytes;
 
-                    for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMethods.entrySet()) {
-                        RequestMappingInfo mappingInfo = entry.getKey();
-                        HandlerMethod handlerMethod = entry.getValue();
+        protected LogTools(LogCapture logCapture, long maxResponseBytes) {
+            this.logCapture = logCapture;
+            this.maxResponseBytes = maxResponseBytes;
+        }
 
-                        Map<String, Object> route = new HashMap<>();
-                        route.put("mappingInfo", mappingInfo);
-                        route.put("controller", handlerMethod.getBeanType().getSimpleName());
-                        route.put("fullController", handlerMethod.getBeanType().getName());
-                        route.put("method", handlerMethod.getMethod().toGenericString());
+        @Tool(description = "Gets the latest application log events, oldest first, including those logged during devtools restarts. Pass the returned 'nextCursor' to get only the events logged since.",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object tailLogs(
+                @ToolParam(description = "optional minimum level: TRACE, DEBUG, INFO, WARN or ERROR", required = false) String level,
+                @ToolParam(description = "optional prefix the logger name must start with (e.g., 'org.hibernate')", required = false) String loggerPrefix,
+                @ToolParam(description = "optional regular expression the message or stack trace must contain a match for", required = false) String pattern,
+                @ToolParam(description = "optional time window, only events logged within it (e.g., '30s', '5m')", required = false) String since,
+                @ToolParam(description = "optional cursor returned as 'nextCursor' by a previous call", required = false) String cursor,
+                @ToolParam(description = "optional maximum number of events, default 100", required = false) Integer limit,
+                @ToolParam(description = StandardTools.FORMAT_DESCRIPTION, required = false) String format) {
+            LogRingBuffer logs = logCapture.logs();
+            if (logs == null) {
+                return Collections.singletonMap("error", "Logs are not captured, neither Logback nor Log4j2 backs the application's logging");
+            }
+            ToolResponse.Format responseFormat = ToolResponse.Format.parse(format);
+            if (responseFormat == null) {
+                return StandardTools.unknownFormat(format);
+            }
 
-                        routes.add(route);
-                    }
-                } catch (Exception e) {
-                    Map<String, Object> error = new HashMap<>();
-                    error.put("error", "Failed to get HTTP routes: " + e.getMessage());
-                    routes.add(error);
+            int minLevel = -1;
+            if (level != null && !level.isBlank()) {
+                minLevel = LogRingBuffer.level(level);
+                if (minLevel < 0) {
+                    return Collections.singletonMap("error", "Unknown level: " + level + " (expected TRACE, DEBUG, INFO, WARN or ERROR)");
                 }
-            });
+            }
+            Pattern regex = null;
+            if (pattern != null && !pattern.isEmpty()) {
+                try {
+                    regex = Pattern.compile(pattern);
+                } catch (PatternSyntaxException e) {
+                    return Collections.singletonMap("error", "Invalid pattern: " + e.getDescription());
+                }
+            }
+            long fromMillis = 0;
+            if (since != null && !since.isBlank()) {
+                try {
+                    fromMillis = System.currentTimeMillis() - DurationStyle.detectAndParse(since).toMillis();
+                } catch (IllegalArgumentException e) {
+                    return Collections.singletonMap("error", "Invalid time window: " + since);
+                }
+            }
+            long after;
+            try {
+                after = cursor != null && !cursor.isEmpty() ? Long.parseLong(cursor) : -1;
+            } catch (NumberFormatException e) {
+                return Collections.singletonMap("error", "Invalid cursor: " + cursor);
+            }
 
-            return routes;
+            int threshold = minLevel;
+            String prefix = loggerPrefix != null && !loggerPrefix.isEmpty() ? loggerPrefix : null;
+            Pattern matcher = regex;
+            long from = fromMillis;
+            Predicate<LogRingBuffer.Event> filter = event -> event.level >= threshold
+                    && event.timestamp >= from
+                    && (prefix == null || (event.logger != null && event.logger.startsWith(prefix)))
+                    && (matcher == null || (event.message != null && matcher.matcher(event.message).find())
+                        || (event.throwable != null && matcher.matcher(event.throwable).find()));
+
+            int max = limit != null && limit > 0 ? limit : 100;
+            LogRingBuffer.Page page = after >= 0 ? logs.after(after, filter, max) : logs.latest(filter, max);
+
+            Iterator<Object[]> rows = page.events.stream()
+                    .map(event -> new Object[] {event.sequence, Instant.ofEpochMilli(event.timestamp).toString(), event.levelName(),
+                            event.logger, event.thread, event.message, event.throwable})
+                    .iterator();
+            return ToolResponse.table(maxResponseBytes, responseFormat, LOG_COLUMNS, 0, rows, String.valueOf(page.cursor));
         }
     }
 
-    static class WebFluxTools {
-        private final ApplicationContext applicationContext;
+    static class PoolTools {
+        private static final String CACHE = "cache";
 
-        protected WebFluxTools(ApplicationContext applicationContext) {
-            this.applicationContext = applicationContext;
+        private final PoolInspector poolInspector;
+        private final PoolSampler poolSampler;
+        private final long maxResponseBytes;
+
+        /**
+         * @param poolSampler {@code null} when the sampler is not enabled
+         */
+        protected PoolTools(PoolInspector poolInspector, PoolSampler poolSampler, long maxResponseBytes) {
+            this.poolInspector = poolInspector;
+            this.poolSampler = poolSampler;
+            this.maxResponseBytes = maxResponseBytes;
+        }
+
+        @Tool(description = "Gets how busy the thread pool executors, JDBC connection pools and Reactor schedulers are (active, queued and maximum threads, connections in use and threads waiting for one) and the hit, miss and eviction counts of the caches, with the saturation spikes of the recent history when the pool sampler is enabled",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getPoolSaturation(
+                @ToolParam(description = "optional kind of pool: 'executor', 'dataSource', 'scheduler' or 'cache', default all", required = false) String kind) {
+            if (kind != null && !kind.isBlank() && !List.of(PoolInspector.EXECUTOR, PoolInspector.DATA_SOURCE, PoolInspector.SCHEDULER, CACHE).contains(kind)) {
+                return Collections.singletonMap("error", "Unknown kind: " + kind + " (expected 'executor', 'dataSource', 'scheduler' or 'cache')");
+            }
+            String selected = kind != null && !kind.isBlank() ? kind : null;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (!CACHE.equals(selected)) {
+                Map<String, List<Map<String, Object>>> pools = new LinkedHashMap<>();
+                pools.put(PoolInspector.EXECUTOR, new ArrayList<>());
+                pools.put(PoolInspector.DATA_SOURCE, new ArrayList<>());
+                pools.put(PoolInspector.SCHEDULER, new ArrayList<>());
+                for (PoolInspector.Pool pool : poolInspector.pools()) {
+                    if (selected == null || selected.equals(pool.kind)) {
+                        pools.get(pool.kind).add(pool.toMap());
+                    }
+                }
+                pools.forEach((poolKind, list) -> {
+                    if (selected == null || selected.equals(poolKind)) {
+                        result.put(poolKind + "s", list);
+                    }
+                });
+            }
+            if (selected == null || CACHE.equals(selected)) {
+                result.put("caches", poolInspector.caches());
+            }
+            if (!CACHE.equals(selected)) {
+                if (poolSampler != null) {
+                    result.put("history", poolSampler.toMap(selected));
+                } else {
+                    result.put("hint", "Set devtools.mcp.pools.sampler.enabled=true to keep a history of the saturation spikes between calls");
+                }
+            }
+            return ToolResponse.tree(maxResponseBytes, result, "pass a kind to return fewer pools");
         }
+    }
 
-        @Tool(description = "Gets all WebFlux routes registered in the Spring application")
-        public List<Map<String, Object>> getWebFluxRoutes() {
-            List<Map<String, Object>> routes = new ArrayList<>();
+    static class DiagnosticTools {
+        private final HotThreads hotThreads;
+        private final JfrProfiler jfrProfiler;
+        private final HeapHistograms heapHistograms;
+
+        /**
+         * @param jfrProfiler {@code null} when JFR is not available
+         * @param heapHistograms {@code null} when the DiagnosticCommand MBean is not available
+         */
+        protected DiagnosticTools(HotThreads hotThreads, JfrProfiler jfrProfiler, HeapHistograms heapHistograms) {
+            this.hotThreads = hotThreads;
+            this.jfrProfiler = jfrProfiler;
+            this.heapHistograms = heapHistograms;
+        }
 
+        @Tool(description = "Takes a class histogram of the live heap (running a full GC), with the classes using the most bytes, the classes defined by several class loaders, the class loaders defining the most classes and the class loaders per type, compared with the previous histogram, including those taken before devtools restarts, to find what grows")
+        public Map<String, Object> getHeapHistogram(
+                @ToolParam(description = "optional number of classes per list, default 20, at most 200", required = false) Integer top,
+                @ToolParam(description = "optional snapshot number to compare with instead of the previous one", required = false) Integer compareTo) {
+            if (heapHistograms == null) {
+                return Collections.singletonMap("error", "Class histograms are not available in this JVM");
+            }
+            int limit = bounded(top, 20, 200);
+            HeapHistograms.Snapshot snapshot;
             try {
-                // Get the RouterFunction beans
-                Map<String, org.springframework.web.reactive.function.server.RouterFunction> routerFunctions =
-                        applicationContext.getBeansOfType(org.springframework.web.reactive.function.server.RouterFunction.class);
+                snapshot = heapHistograms.take();
+            } catch (Exception e) {
+                return Collections.singletonMap("error", "Failed to take a class histogram: " + e.getMessage());
+            }
+            if (snapshot == null) {
+                return Collections.singletonMap("error", "Another class histogram is being taken, try again when it is done");
+            }
+
+            Map<String, Object> result = HeapHistograms.toMap(snapshot, limit);
+            HeapHistograms.Snapshot base = compareTo != null ? heapHistograms.snapshot(compareTo) : heapHistograms.previous(snapshot.number);
+            if (base != null) {
+                result.put("growth", HeapHistograms.compare(base, snapshot, limit));
+            } else if (compareTo != null) {
+                result.put("growth", Collections.singletonMap("error", "Snapshot not found: " + compareTo + " (the last " + HeapHistograms.MAX_SNAPSHOTS + " are kept)"));
+            }
+            result.put("snapshots", heapHistograms.snapshots());
+            return result;
+        }
 
-                // Get the RouterFunctionMapping if available
-                Object routerFunctionMapping = null;
+        @Tool(description = "Compares two class histograms already taken with getHeapHistogram, with the classes whose bytes, instance counts and number of defining class loaders grew the most and the change in class loaders per type")
+        public Map<String, Object> compareHeapHistograms(
+                @ToolParam(description = "snapshot number to compare from") Integer baseSnapshot,
+                @ToolParam(description = "snapshot number to compare to") Integer snapshot,
+                @ToolParam(description = "optional number of classes per list, default 20, at most 200", required = false) Integer top) {
+            if (heapHistograms == null) {
+                return Collections.singletonMap("error", "Class histograms are not available in this JVM");
+            }
+            if (baseSnapshot == null || snapshot == null) {
+                return Collections.singletonMap("error", "Both snapshot numbers are required");
+            }
+            HeapHistograms.Snapshot base = heapHistograms.snapshot(baseSnapshot);
+            HeapHistograms.Snapshot compared = heapHistograms.snapshot(snapshot);
+            if (base == null || compared == null) {
+                return Collections.singletonMap("error", "Snapshot not found: " + (base == null ? baseSnapshot : snapshot)
+                        + " (the last " + HeapHistograms.MAX_SNAPSHOTS + " are kept)");
+            }
+            return HeapHistograms.compare(base, compared, bounded(top, 20, 200));
+        }
+
+        @Tool(description = "Samples the threads over a short window (blocking for that window) and returns the threads using the most CPU with their most frequent stacks, identical stacks aggregated across threads, contended locks with their owners, and deadlocks")
+        public Map<String, Object> getHotThreads(
+                @ToolParam(description = "optional sampling window (e.g., '500ms', '2s'), default 1s, at most 10s", required = false) String window,
+                @ToolParam(description = "optional number of stack samples taken during the window, default 10, at most 50", required = false) Integer samples,
+                @ToolParam(description = "optional number of threads to return, default 10, at most 50", required = false) Integer topThreads,
+                @ToolParam(description = "optional maximum number of frames per stack, default 20, at most 64", required = false) Integer stackDepth) {
+            Duration duration = Duration.ofSeconds(1);
+            if (window != null && !window.isBlank()) {
                 try {
-                    routerFunctionMapping = applicationContext.getBean("routerFunctionMapping");
-                } catch (Exception e) {
-                    // RouterFunctionMapping not available
+                    duration = DurationStyle.detectAndParse(window.trim());
+                } catch (IllegalArgumentException e) {
+                    return Collections.singletonMap("error", "Invalid window: " + window + " (expected a duration such as '500ms' or '2s')");
                 }
+            }
+            if (duration.isNegative() || duration.isZero()) {
+                duration = Duration.ofSeconds(1);
+            } else if (duration.compareTo(HotThreads.MAX_WINDOW) > 0) {
+                duration = HotThreads.MAX_WINDOW;
+            }
 
-                // Add information about router functions
-                for (Map.Entry<String, org.springframework.web.reactive.function.server.RouterFunction> entry : routerFunctions.entrySet()) {
-                    Map<String, Object> route = new HashMap<>();
-                    route.put("beanName", entry.getKey());
-                    route.put("type", "RouterFunction");
-                    route.put("class", entry.getValue().getClass().getName());
-                    routes.add(route);
-                }
+            try {
+                Map<String, Object> result = hotThreads.analyze(duration,
+                        bounded(samples, 10, HotThreads.MAX_SAMPLES),
+                        bounded(topThreads, 10, HotThreads.MAX_THREADS),
+                        bounded(stackDepth, 20, HotThreads.MAX_STACK_DEPTH));
+                return result != null ? result : Collections.singletonMap("error", "Another hot threads analysis is running, try again when it is done");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Collections.singletonMap("error", "Hot threads analysis was interrupted");
+            }
+        }
 
-                // Get the RequestMappingHandlerMapping for WebFlux if available
-                Object handlerMapping = null;
+        @Tool(description = "Profiles the application with Java Flight Recorder for a few seconds (blocking for that time) and returns compact summaries: GC pause distribution, top allocation sites and classes, top CPU methods, contended monitors, and file and socket I/O hotspots")
+        public Map<String, Object> profileWithJfr(
+                @ToolParam(description = "optional recording duration (e.g., '10s'), default 10s, at most 60s", required = false) String duration,
+                @ToolParam(description = "optional comma separated summaries among 'gc', 'allocation', 'cpu', 'locks' and 'io', default all", required = false) String summaries,
+                @ToolParam(description = "optional number of entries per summary, default 10, at most 50", required = false) Integer top) {
+            if (jfrProfiler == null) {
+                return Collections.singletonMap("error", "Java Flight Recorder is not available in this JVM");
+            }
+            Duration recordingDuration = Duration.ofSeconds(10);
+            if (duration != null && !duration.isBlank()) {
                 try {
-                    handlerMapping = applicationContext.getBean("requestMappingHandlerMapping");
-                    if (handlerMapping.getClass().getName().contains("reactive")) {
-                        // This is likely the WebFlux RequestMappingHandlerMapping
-                        // Use reflection to get the handler methods
-                        java.lang.reflect.Method getHandlerMethodsMethod =
-                                handlerMapping.getClass().getMethod("getHandlerMethods");
-                        Map<?, ?> handlerMethods = (Map<?, ?>) getHandlerMethodsMethod.invoke(handlerMapping);
-
-                        for (Map.Entry<?, ?> handlerEntry : handlerMethods.entrySet()) {
-                            Map<String, Object> route = new HashMap<>();
-                            route.put("type", "AnnotatedController");
-                            route.put("mapping", handlerEntry.getKey().toString());
-                            route.put("handler", handlerEntry.getValue().toString());
-                            routes.add(route);
-                        }
-                    }
-                } catch (Exception e) {
-                    // RequestMappingHandlerMapping not available or reflection failed
-                    Map<String, Object> error = new HashMap<>();
-                    error.put("error", "Could not access WebFlux handler mappings: " + e.getMessage());
-                    routes.add(error);
+                    recordingDuration = DurationStyle.detectAndParse(duration.trim());
+                } catch (IllegalArgumentException e) {
+                    return Collections.singletonMap("error", "Invalid duration: " + duration + " (expected a duration such as '10s')");
                 }
+            }
+            if (recordingDuration.isNegative() || recordingDuration.isZero()) {
+                recordingDuration = Duration.ofSeconds(10);
+            } else if (recordingDuration.compareTo(JfrProfiler.MAX_DURATION) > 0) {
+                recordingDuration = JfrProfiler.MAX_DURATION;
+            }
+            Set<JfrProfiler.Summary> selected = JfrProfiler.Summary.parse(summaries);
+            if (selected == null) {
+                return Collections.singletonMap("error", "Unknown summaries: " + summaries + " (expected 'gc', 'allocation', 'cpu', 'locks' or 'io')");
+            }
+
+            try {
+                Map<String, Object> result = jfrProfiler.profile(recordingDuration, selected, bounded(top, 10, 50));
+                return result != null ? result : Collections.singletonMap("error", "Another JFR recording is running, try again when it is done");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Collections.singletonMap("error", "JFR recording was interrupted");
+            } catch (Exception e) {
+                return Collections.singletonMap("error", "Failed to record with JFR: " + e.getMessage());
+            }
+        }
+
+        private static int bounded(Integer value, int defaultValue, int max) {
+            return value != null && value > 0 ? Math.min(value, max) : defaultValue;
+        }
+    }
+
+    static class BeanGraphTools {
+        private static final String[] DEPENDENCY_COLUMNS = {"bean", "depth", "via"};
+
+        private final BeanGraph beanGraph;
+        private final long maxResponseBytes;
+
+        protected BeanGraphTools(BeanGraph beanGraph, long maxResponseBytes) {
+            this.beanGraph = beanGraph;
+            this.maxResponseBytes = maxResponseBytes;
+        }
+
+        @Tool(description = "Gets the beans a bean depends on, or the beans depending on it, transitively, with the depth each one is reached at and the bean it is reached through",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getBeanDependencies(
+                @ToolParam(description = "name of the bean") String beanName,
+                @ToolParam(description = "optional 'dependencies' (default) or 'dependents'", required = false) String direction,
+                @ToolParam(description = "optional maximum depth, 1 for direct ones only, default unlimited", required = false) Integer maxDepth,
+                @ToolParam(description = StandardTools.FORMAT_DESCRIPTION, required = false) String format) {
+            ToolResponse.Format responseFormat = ToolResponse.Format.parse(format);
+            if (responseFormat == null) {
+                return StandardTools.unknownFormat(format);
+            }
+            boolean dependents;
+            if (direction == null || direction.isBlank() || direction.equalsIgnoreCase("dependencies")) {
+                dependents = false;
+            } else if (direction.equalsIgnoreCase("dependents")) {
+                dependents = true;
+            } else {
+                return Collections.singletonMap("error", "Unknown direction: " + direction + " (expected 'dependencies' or 'dependents')");
+            }
+
+            List<BeanGraph.Reached> reached = beanGraph.walk(beanName, dependents, maxDepth != null ? maxDepth : 0);
+            if (reached == null) {
+                return Collections.singletonMap("error", "Bean not found or not created yet: " + beanName);
+            }
+            Iterator<Object[]> rows = reached.stream()
+                    .map(bean -> new Object[] {bean.name, bean.depth, bean.via})
+                    .iterator();
+            return ToolResponse.table(maxResponseBytes, responseFormat, DEPENDENCY_COLUMNS, -1, rows, null);
+        }
+
+        @Tool(description = "Gets the shortest chain of dependencies through which one bean depends on another")
+        public Map<String, Object> getBeanDependencyPath(
+                @ToolParam(description = "name of the depending bean") String fromBean,
+                @ToolParam(description = "name of the bean depended on") String toBean) {
+            List<String> path = beanGraph.path(fromBean, toBean);
+            if (path == null) {
+                return Collections.singletonMap("error", "Bean not found or not created yet: "
+                        + (beanGraph.contains(fromBean) ? toBean : fromBean));
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("dependsOn", !path.isEmpty());
+            result.put("path", path);
+            if (path.isEmpty() && !beanGraph.path(toBean, fromBean).isEmpty()) {
+                result.put("hint", toBean + " depends on " + fromBean + ", swap the beans for the path");
+            }
+            return result;
+        }
+
+        @Tool(description = "Gets the groups of beans that depend on each other in a cycle",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getBeanDependencyCycles() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("beans", beanGraph.beanCount());
+            result.put("dependencies", beanGraph.edgeCount());
+            result.put("cycles", beanGraph.cycles());
+            return ToolResponse.tree(maxResponseBytes, result, "look at the path between two beans of a cycle with getBeanDependencyPath");
+        }
+    }
+
+    static class StartupTools {
+        private final StartupProfiles startupProfiles;
+        private final long maxResponseBytes;
+
+        protected StartupTools(StartupProfiles startupProfiles, long maxResponseBytes) {
+            this.startupProfiles = startupProfiles;
+            this.maxResponseBytes = maxResponseBytes;
+        }
+
+        @Tool(description = "Gets the slowest beans to create, excluding the beans they create in turn, the slowest configuration classes and context steps, and the critical path of nested bean creations, for one of the last startups including devtools restarts",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getStartupProfile(
+                @ToolParam(description = "optional run number from 'runs', default the latest startup", required = false) Integer run,
+                @ToolParam(description = "optional maximum number of beans, configurations and steps, default 20", required = false) Integer top) {
+            StartupProfiles.Run selected = startupProfiles.run(run);
+            if (selected == null) {
+                return notRecorded(run);
+            }
+            Map<String, Object> result = StartupProfiles.toMap(selected, top != null && top > 0 ? top : 20);
+            result.put("runs", startupProfiles.runs());
+            return ToolResponse.tree(maxResponseBytes, result, "lower 'top'");
+        }
+
+        @Tool(description = "Compares two startups, including devtools restarts, with the beans whose creation time changed the most and the beans created in only one of them",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object compareStartupProfiles(
+                @ToolParam(description = "optional run number to compare, default the latest startup", required = false) Integer run,
+                @ToolParam(description = "optional run number to compare with, default the startup before 'run'", required = false) Integer baseRun,
+                @ToolParam(description = "optional maximum number of beans, default 20", required = false) Integer top) {
+            StartupProfiles.Run selected = startupProfiles.run(run);
+            if (selected == null) {
+                return notRecorded(run);
+            }
+            StartupProfiles.Run base = baseRun != null ? startupProfiles.run(baseRun) : startupProfiles.previous(selected.number);
+            if (base == null) {
+                return baseRun != null ? notRecorded(baseRun)
+                        : Collections.singletonMap("error", "There is no startup before run " + selected.number + ", restart the application to record one");
+            }
+            return ToolResponse.tree(maxResponseBytes, StartupProfiles.compare(base, selected, top != null && top > 0 ? top : 20), "lower 'top'");
+        }
+
+        private Map<String, Object> notRecorded(Integer run) {
+            if (run != null) {
+                return Collections.singletonMap("error", "Startup not found: " + run + " (the last " + StartupProfiles.MAX_RUNS + " are kept)");
+            }
+            return Collections.singletonMap("error", "No startup was recorded, set " + StartupProfileInitializer.ENABLED_PROPERTY
+                    + "=true and restart, or set a BufferingApplicationStartup on the SpringApplication");
+        }
+    }
+
+    static class ChangeTools {
+        private final ChangeFeed changeFeed;
+        private final long maxResponseBytes;
+
+        protected ChangeTools(ChangeFeed changeFeed, long maxResponseBytes) {
+            this.changeFeed = changeFeed;
+            this.maxResponseBytes = maxResponseBytes;
+        }
+
+        @Tool(description = "Gets the beans, properties and routes added, changed or removed since a version returned by a previous call, across devtools restarts. Call without a version to get the current version.",
+                resultConverter = StreamingJsonResultConverter.class)
+        public Object getChangesSince(
+                @ToolParam(description = "the 'version' returned by a previous call", required = false) Long version) {
+            try {
+                return ToolResponse.tree(maxResponseBytes, changeFeed.changesSince(version != null ? version : 0), "fetch the full datasets instead", 3);
             } catch (Exception e) {
-                Map<String, Object> error = new HashMap<>();
-                error.put("error", "Failed to get WebFlux routes: " + e.getMessage());
-                routes.add(error);
+                return Collections.singletonMap("error", "Failed to get changes: " + e.getMessage());
             }
+        }
+    }
+
+    static class ServerTools {
+        private final ToolMetrics toolMetrics;
+        private final McpSessions sessions;
+
+        protected ServerTools(ToolMetrics toolMetrics, McpSessions sessions) {
+            this.toolMetrics = toolMetrics;
+            this.sessions = sessions;
+        }
 
-            return routes;
+        @Tool(description = "Gets statistics about this MCP server: calls, errors, latency percentiles and response sizes per tool and per client session, and the open SSE sessions with their queued bytes")
+        public Map<String, Object> getMcpServerStats() {
+            Map<String, Object> stats = toolMetrics.toMap();
+            stats.put("transport", sessions.toMap());
+            return stats;
         }
     }
 
@@ -0,0 +1,402 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Class histograms of the heap taken with the {@code DiagnosticCommand} MBean, the equivalent of
+ * {@code jcmd GC.class_histogram} and {@code jcmd VM.classloader_stats}. Each snapshot is parsed into parallel arrays
+ * sorted by class name, with the number of instances and bytes per class and the number of class loaders that define
+ * a class of that name, so that two snapshots are compared with a single merge, and the classes and metaspace bytes
+ * of each class loader.
+ * <p>
+ * A class whose definitions grow from one restart to the next is defined again by every new restart class loader
+ * while the old ones are still reachable, which is how a class loader leak shows.
+ * <p>
+ * The snapshots are static, {@linkplain com.jamesward.springdevtoolsmcpserver kept across restarts}, so what grows from
+ * one restart to the next, such as class loaders that are never released, shows in the comparison. Taking a histogram
+ * runs a full GC, so only live objects are counted.
+ */
+class HeapHistograms {
+
+    static final int MAX_SNAPSHOTS = 10;
+
+    private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+    private static final String[] SIGNATURE = {String[].class.getName()};
+
+    // "   1:         12345        1234567  [B (java.base@17.0.2)"
+    private static final Pattern CLASS_LINE = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)");
+
+    private static final Deque<Snapshot> SNAPSHOTS = new ArrayDeque<>();
+    private static int nextSnapshot = 1;
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final ObjectName diagnosticCommand;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    HeapHistograms() throws JMException {
+        this.diagnosticCommand = new ObjectName(DIAGNOSTIC_COMMAND);
+        if (!server.isRegistered(diagnosticCommand)) {
+            throw new JMException("The DiagnosticCommand MBean is not available in this JVM");
+        }
+    }
+
+    /**
+     * Takes a new snapshot, or returns {@code null} if another one is being taken.
+     */
+    Snapshot take() throws JMException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            String histogram = invoke("gcClassHistogram");
+            String loaders = invoke("vmClassloaderStats");
+            Snapshot snapshot = parse(histogram, loaders);
+            synchronized (SNAPSHOTS) {
+                snapshot.number = nextSnapshot++;
+                SNAPSHOTS.addFirst(snapshot);
+                while (SNAPSHOTS.size() > MAX_SNAPSHOTS) {
+                    SNAPSHOTS.removeLast();
+                }
+            }
+            return snapshot;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private String invoke(String operation) throws JMException {
+        return (String) server.invoke(diagnosticCommand, operation, new Object[] {new String[0]}, SIGNATURE);
+    }
+
+    /**
+     * The snapshot numbered {@code number}, or {@code null} if it is no longer kept.
+     */
+    Snapshot snapshot(int number) {
+        synchronized (SNAPSHOTS) {
+            for (Snapshot snapshot : SNAPSHOTS) {
+                if (snapshot.number == number) {
+                    return snapshot;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The latest snapshot taken before the one numbered {@code number}.
+     */
+    Snapshot previous(int number) {
+        synchronized (SNAPSHOTS) {
+            for (Snapshot snapshot : SNAPSHOTS) {
+                if (snapshot.number < number) {
+                    return snapshot;
+                }
+            }
+            return null;
+        }
+    }
+
+    List<Map<String, Object>> snapshots() {
+        List<Map<String, Object>> snapshots = new ArrayList<>();
+        synchronized (SNAPSHOTS) {
+            for (Snapshot snapshot : SNAPSHOTS) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("snapshot", snapshot.number);
+                summary.put("takenAt", snapshot.takenAt);
+                summary.put("instances", snapshot.totalInstances);
+                summary.put("bytes", snapshot.totalBytes);
+                snapshots.add(summary);
+            }
+        }
+        return snapshots;
+    }
+
+    static Snapshot parse(String histogram, String loaders) {
+        Map<String, long[]> classes = new HashMap<>();
+        for (String line : histogram.split("\n")) {
+            Matcher matcher = CLASS_LINE.matcher(line);
+            if (matcher.find()) {
+                // the same name appears once per class loader that defined it
+                long[] counts = classes.computeIfAbsent(matcher.group(3), key -> new long[3]);
+                counts[0] += Long.parseLong(matcher.group(1));
+                counts[1] += Long.parseLong(matcher.group(2));
+                counts[2]++;
+            }
+        }
+        String[] names = classes.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        long[] instances = new long[names.length];
+        long[] bytes = new long[names.length];
+        int[] definitions = new int[names.length];
+        long totalInstances = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < names.length; i++) {
+            long[] counts = classes.get(names[i]);
+            instances[i] = counts[0];
+            bytes[i] = counts[1];
+            definitions[i] = (int) counts[2];
+            totalInstances += counts[0];
+            totalBytes += counts[1];
+        }
+        return new Snapshot(System.currentTimeMillis(), names, instances, bytes, definitions, totalInstances, totalBytes,
+                parseLoaders(loaders));
+    }
+
+    /**
+     * The class loaders with, for each, the number of classes and metaspace chunk bytes. A loader line is
+     * "ClassLoader Parent CLD* Classes ChunkSz BlockSz Type", followed for loaders that defined hidden classes by a
+     * line with only the counts of those.
+     */
+    private static List<Loader> parseLoaders(String loaders) {
+        List<Loader> result = new ArrayList<>();
+        Loader current = null;
+        for (String line : loaders.split("\n")) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length >= 7 && fields[0].startsWith("0x") && isNumber(fields[3]) && isNumber(fields[4])) {
+                current = new Loader(fields[0], String.join(" ", Arrays.asList(fields).subList(6, fields.length)));
+                current.classes = Long.parseLong(fields[3]);
+                current.chunkBytes = Long.parseLong(fields[4]);
+                result.add(current);
+            } else if (current != null && fields.length >= 3 && isNumber(fields[0]) && isNumber(fields[1]) && line.contains("hidden")) {
+                current.classes += Long.parseLong(fields[0]);
+                current.chunkBytes += Long.parseLong(fields[1]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Class loader types with, for each, the number of loaders, classes and metaspace chunk bytes.
+     */
+    private static Map<String, long[]> loaderTypes(List<Loader> loaders) {
+        Map<String, long[]> types = new TreeMap<>();
+        for (Loader loader : loaders) {
+            long[] counts = types.computeIfAbsent(loader.type, key -> new long[3]);
+            counts[0]++;
+            counts[1] += loader.classes;
+            counts[2] += loader.chunkBytes;
+        }
+        return types;
+    }
+
+    private static boolean isNumber(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (!Character.isDigit(field.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The classes using the most bytes, the classes defined by the most class loaders, the class loaders defining the
+     * most classes and all the class loader types of {@code snapshot}.
+     */
+    static Map<String, Object> toMap(Snapshot snapshot, int top) {
+        Integer[] order = new Integer[snapshot.names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> snapshot.bytes[i]).reversed());
+        List<Map<String, Object>> classes = new ArrayList<>();
+        for (int i = 0; i < Math.min(top, order.length); i++) {
+            classes.add(classMap(snapshot, order[i]));
+        }
+
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> snapshot.definitions[i]).reversed());
+        List<Map<String, Object>> redefined = new ArrayList<>();
+        int redefinedCount = 0;
+        for (int i = 0; i < order.length && snapshot.definitions[order[i]] > 1; i++) {
+            redefinedCount++;
+            if (redefined.size() < top) {
+                redefined.add(classMap(snapshot, order[i]));
+            }
+        }
+
+        List<Loader> byClasses = new ArrayList<>(snapshot.classLoaders);
+        byClasses.sort(Comparator.comparingLong((Loader loader) -> loader.classes).reversed());
+        List<Map<String, Object>> topLoaders = new ArrayList<>();
+        for (Loader loader : byClasses.subList(0, Math.min(top, byClasses.size()))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("loader", loader.address);
+            row.put("type", loader.type);
+            row.put("classes", loader.classes);
+            row.put("metaspaceBytes", loader.chunkBytes);
+            topLoaders.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("snapshot", snapshot.number);
+        result.put("takenAt", snapshot.takenAt);
+        result.put("instances", snapshot.totalInstances);
+        result.put("bytes", snapshot.totalBytes);
+        result.put("classes", snapshot.names.length);
+        result.put("topClassesByBytes", classes);
+        result.put("classesDefinedMoreThanOnce", redefinedCount);
+        result.put("topClassesByDefinitions", redefined);
+        result.put("topClassLoadersByClasses", topLoaders);
+        Map<String, Object> loaders = new LinkedHashMap<>();
+        snapshot.loaders.forEach((type, counts) -> loaders.put(type, loaderMap(counts[0], counts[1], counts[2])));
+        result.put("classLoaders", loaders);
+        return result;
+    }
+
+    private static Map<String, Object> classMap(Snapshot snapshot, int index) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("class", snapshot.names[index]);
+        row.put("instances", snapshot.instances[index]);
+        row.put("bytes", snapshot.bytes[index]);
+        row.put("definitions", snapshot.definitions[index]);
+        return row;
+    }
+
+    /**
+     * The classes whose bytes, instance counts and number of definitions grew the most from {@code base} to
+     * {@code snapshot}, and the change in class loaders per type.
+     */
+    static Map<String, Object> compare(Snapshot base, Snapshot snapshot, int top) {
+        // merge the two name-sorted snapshots into the classes present in either
+        List<String> names = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < base.names.length || j < snapshot.names.length) {
+            int order = i == base.names.length ? 1 : j == snapshot.names.length ? -1 : base.names[i].compareTo(snapshot.names[j]);
+            if (order < 0) {
+                names.add(base.names[i]);
+                deltas.add(new long[] {-base.instances[i], -base.bytes[i], 0, 0, -base.definitions[i], 0});
+                i++;
+            } else if (order > 0) {
+                names.add(snapshot.names[j]);
+                deltas.add(new long[] {snapshot.instances[j], snapshot.bytes[j], snapshot.instances[j], snapshot.bytes[j],
+                        snapshot.definitions[j], snapshot.definitions[j]});
+                j++;
+            } else {
+                names.add(snapshot.names[j]);
+                deltas.add(new long[] {snapshot.instances[j] - base.instances[i], snapshot.bytes[j] - base.bytes[i],
+                        snapshot.instances[j], snapshot.bytes[j], snapshot.definitions[j] - base.definitions[i], snapshot.definitions[j]});
+                i++;
+                j++;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseSnapshot", base.number);
+        result.put("snapshot", snapshot.number);
+        result.put("seconds", (snapshot.takenAt - base.takenAt) / 1000);
+        result.put("instancesDelta", snapshot.totalInstances - base.totalInstances);
+        result.put("bytesDelta", snapshot.totalBytes - base.totalBytes);
+        result.put("topGrowthByBytes", growth(names, deltas, 1, top));
+        result.put("topGrowthByInstances", growth(names, deltas, 0, top));
+        result.put("topGrowthByDefinitions", growth(names, deltas, 4, top));
+
+        Map<String, Object> loaders = new LinkedHashMap<>();
+        Map<String, long[]> types = new TreeMap<>(base.loaders);
+        snapshot.loaders.forEach(types::putIfAbsent);
+        for (String type : types.keySet()) {
+            long[] before = base.loaders.getOrDefault(type, new long[3]);
+            long[] after = snapshot.loaders.getOrDefault(type, new long[3]);
+            if (!Arrays.equals(before, after)) {
+                Map<String, Object> delta = loaderMap(after[0], after[1], after[2]);
+                delta.put("loadersDelta", after[0] - before[0]);
+                delta.put("classesDelta", after[1] - before[1]);
+                loaders.put(type, delta);
+            }
+        }
+        result.put("classLoaderChanges", loaders);
+        return result;
+    }
+
+    private static List<Map<String, Object>> growth(List<String> names, List<long[]> deltas, int column, int top) {
+        Integer[] order = new Integer[names.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> deltas.get(i)[column]).reversed());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < Math.min(top, order.length) && deltas.get(order[i])[column] > 0; i++) {
+            long[] delta = deltas.get(order[i]);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("class", names.get(order[i]));
+            row.put("instancesDelta", delta[0]);
+            row.put("bytesDelta", delta[1]);
+            row.put("instances", delta[2]);
+            row.put("bytes", delta[3]);
+            row.put("definitionsDelta", delta[4]);
+            row.put("definitions", delta[5]);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> loaderMap(long loaders, long classes, long chunkBytes) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("loaders", loaders);
+        map.put("classes", classes);
+        map.put("metaspaceBytes", chunkBytes);
+        return map;
+    }
+
+    static final class Snapshot {
+        int number;
+        final long takenAt;
+        final String[] names;
+        final long[] instances;
+        final long[] bytes;
+        /**
+         * The number of class loaders that define a class of each name.
+         */
+        final int[] definitions;
+        final long totalInstances;
+        final long totalBytes;
+        final List<Loader> classLoaders;
+        /**
+         * Per class loader type, the number of loaders, classes and metaspace bytes.
+         */
+        final Map<String, long[]> loaders;
+
+        Snapshot(long takenAt, String[] names, long[] instances, long[] bytes, int[] definitions, long totalInstances,
+                 long totalBytes, List<Loader> classLoaders) {
+            this.takenAt = takenAt;
+            this.names = names;
+            this.instances = instances;
+            this.bytes = bytes;
+            this.definitions = definitions;
+            this.totalInstances = totalInstances;
+            this.totalBytes = totalBytes;
+            this.classLoaders = classLoaders;
+            this.loaders = loaderTypes(classLoaders);
+        }
+    }
+
+    static final class Loader {
+        final String address;
+        final String type;
+        long classes;
+        long chunkBytes;
+
+        Loader(String address, String type) {
+            this.address = address;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Finds the threads that burn CPU or wait on locks. Over a short window, takes a bounded number of stack samples
+ * of limited depth, and ranks threads by the CPU time they used during the window. Identical stacks are aggregated
+ * per thread and across threads, lock waits are grouped by lock and owner, and deadlocks are reported with the
+ * locks involved.
+ * <p>
+ * Only one analysis runs at a time, and the window, sample count and stack depth are capped, so that calling it on
+ * a busy process costs at most a few thread dumps of shallow stacks.
+ */
+class HotThreads {
+
+    static final Duration MAX_WINDOW = Duration.ofSeconds(10);
+    static final int MAX_SAMPLES = 50;
+    static final int MAX_STACK_DEPTH = 64;
+    static final int MAX_THREADS = 50;
+
+    private static final int STACKS_PER_THREAD = 3;
+    private static final int AGGREGATED_STACKS = 10;
+    private static final int NAMES_PER_STACK = 5;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Returns {@code null} when another analysis is running.
+     */
+    Map<String, Object> analyze(Duration window, int samples, int topThreads, int stackDepth) throws InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        boolean contentionMonitoring = threads.isThreadContentionMonitoringSupported() && !threads.isThreadContentionMonitoringEnabled();
+        try {
+            if (contentionMonitoring) {
+                // needed for blocked and waited times, restored afterwards
+                threads.setThreadContentionMonitoringEnabled(true);
+            }
+            return run(window, samples, topThreads, stackDepth);
+        } finally {
+            if (contentionMonitoring) {
+                threads.setThreadContentionMonitoringEnabled(false);
+            }
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> run(Duration window, int samples, int topThreads, int stackDepth) throws InterruptedException {
+        boolean cpuTime = threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        long[] ids = threads.getAllThreadIds();
+        Map<Long, Sampled> sampled = new HashMap<>();
+        long startNanos = System.nanoTime();
+        for (ThreadInfo info : threads.getThreadInfo(ids, 0)) {
+            if (info != null) {
+                sampled.put(info.getThreadId(), new Sampled(info, cpuTime ? threads.getThreadCpuTime(info.getThreadId()) : -1,
+                        cpuTime ? threads.getThreadUserTime(info.getThreadId()) : -1));
+            }
+        }
+
+        Map<String, Aggregated> stacks = new HashMap<>();
+        Map<String, Contended> locks = new HashMap<>();
+        long sleepNanos = window.toNanos() / samples;
+        for (int sample = 0; sample < samples; sample++) {
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+            for (ThreadInfo info : threads.getThreadInfo(ids, false, false, stackDepth)) {
+                if (info == null) {
+                    continue;
+                }
+                Sampled thread = sampled.get(info.getThreadId());
+                if (thread == null) {
+                    continue;
+                }
+                String stack = stack(info);
+                thread.last = info;
+                thread.stacks.merge(stack, 1, Integer::sum);
+                if (info.getThreadState() == Thread.State.RUNNABLE) {
+                    thread.runnableSamples++;
+                }
+                stacks.computeIfAbsent(info.getThreadState() + "\n" + stack, key -> new Aggregated(info.getThreadState(), stack))
+                        .add(info.getThreadName());
+                if (info.getLockName() != null && info.getLockOwnerName() != null) {
+                    String key = info.getLockName() + " " + info.getLockOwnerId();
+                    locks.computeIfAbsent(key, k -> new Contended(info.getLockName(), info.getLockOwnerName(), info.getLockOwnerId()))
+                            .add(info.getThreadName(), info.getThreadState());
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        List<Sampled> ranked = new ArrayList<>();
+        for (ThreadInfo info : threads.getThreadInfo(ids, 0)) {
+            if (info == null) {
+                continue;
+            }
+            Sampled thread = sampled.get(info.getThreadId());
+            if (thread != null) {
+                thread.end = info;
+                thread.cpuNanos = cpuTime ? delta(threads.getThreadCpuTime(info.getThreadId()), thread.startCpuNanos) : -1;
+                thread.userNanos = cpuTime ? delta(threads.getThreadUserTime(info.getThreadId()), thread.startUserNanos) : -1;
+                ranked.add(thread);
+            }
+        }
+        ranked.sort(cpuTime
+                ? Comparator.comparingLong((Sampled thread) -> thread.cpuNanos).reversed()
+                : Comparator.comparingInt((Sampled thread) -> thread.runnableSamples).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowMs", elapsedNanos / 1_000_000);
+        result.put("samples", samples);
+        result.put("threads", ranked.size());
+        result.put("rankedBy", cpuTime ? "cpuTime" : "runnableSamples");
+
+        List<Map<String, Object>> hotThreads = new ArrayList<>();
+        for (Sampled thread : ranked.subList(0, Math.min(topThreads, ranked.size()))) {
+            hotThreads.add(thread.toMap(elapsedNanos, samples));
+        }
+        result.put("hotThreads", hotThreads);
+
+        List<Map.Entry<String, Aggregated>> topStacks = new ArrayList<>(stacks.entrySet());
+        topStacks.sort(Comparator.comparingInt((Map.Entry<String, Aggregated> entry) -> entry.getValue().samples).reversed());
+        List<Map<String, Object>> aggregated = new ArrayList<>();
+        for (Map.Entry<String, Aggregated> entry : topStacks.subList(0, Math.min(AGGREGATED_STACKS, topStacks.size()))) {
+            aggregated.add(entry.getValue().toMap());
+        }
+        result.put("stacks", aggregated);
+
+        List<Contended> contended = new ArrayList<>(locks.values());
+        contended.sort(Comparator.comparingInt((Contended lock) -> lock.samples).reversed());
+        result.put("contendedLocks", contended.stream().map(Contended::toMap).toList());
+
+        result.put("deadlocks", deadlocks());
+        return result;
+    }
+
+    private static long delta(long end, long start) {
+        return end >= 0 && start >= 0 ? end - start : -1;
+    }
+
+    private static String stack(ThreadInfo info) {
+        StackTraceElement[] frames = info.getStackTrace();
+        if (frames.length == 0) {
+            return "(no Java frames)";
+        }
+        StringBuilder stack = new StringBuilder();
+        for (StackTraceElement frame : frames) {
+            if (!stack.isEmpty()) {
+                stack.append('\n');
+            }
+            stack.append(frame);
+        }
+        return stack.toString();
+    }
+
+    private List<Map<String, Object>> deadlocks() {
+        long[] deadlocked = threads.isSynchronizerUsageSupported() ? threads.findDeadlockedThreads() : threads.findMonitorDeadlockedThreads();
+        if (deadlocked == null) {
+            return List.of();
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ThreadInfo info : threads.getThreadInfo(deadlocked, threads.isObjectMonitorUsageSupported(), threads.isSynchronizerUsageSupported())) {
+            if (info == null) {
+                continue;
+            }
+            Map<String, Object> thread = new LinkedHashMap<>();
+            thread.put("name", info.getThreadName());
+            thread.put("id", info.getThreadId());
+            thread.put("state", info.getThreadState().name());
+            thread.put("waitingFor", info.getLockName());
+            thread.put("heldBy", info.getLockOwnerName());
+            List<String> held = new ArrayList<>();
+            for (MonitorInfo monitor : info.getLockedMonitors()) {
+                held.add(monitor.toString());
+            }
+            for (LockInfo synchronizer : info.getLockedSynchronizers()) {
+                held.add(synchronizer.toString());
+            }
+            thread.put("holds", held);
+            StackTraceElement[] frames = info.getStackTrace();
+            thread.put("stack", Arrays.stream(frames, 0, Math.min(frames.length, 10)).map(StackTraceElement::toString).toList());
+            result.add(thread);
+        }
+        return result;
+    }
+
+    private static final class Sampled {
+        final ThreadInfo start;
+        final long startCpuNanos;
+        final long startUserNanos;
+        final Map<String, Integer> stacks = new HashMap<>();
+        ThreadInfo last;
+        ThreadInfo end;
+        long cpuNanos;
+        long userNanos;
+        int runnableSamples;
+
+        Sampled(ThreadInfo start, long startCpuNanos, long startUserNanos) {
+            this.start = start;
+            this.startCpuNanos = startCpuNanos;
+            this.startUserNanos = startUserNanos;
+        }
+
+        Map<String, Object> toMap(long elapsedNanos, int samples) {
+            ThreadInfo current = end != null ? end : start;
+            Map<String, Object> thread = new LinkedHashMap<>();
+            thread.put("name", current.getThreadName());
+            thread.put("id", current.getThreadId());
+            thread.put("state", current.getThreadState().name());
+            if (cpuNanos >= 0) {
+                thread.put("cpuMs", cpuNanos / 1_000_000.0);
+                thread.put("cpuPercent", Math.round(cpuNanos * 1000.0 / elapsedNanos) / 10.0);
+            }
+            if (userNanos >= 0) {
+                thread.put("userMs", userNanos / 1_000_000.0);
+            }
+            thread.put("blockedCount", current.getBlockedCount() - start.getBlockedCount());
+            if (current.getBlockedTime() >= 0 && start.getBlockedTime() >= 0) {
+                thread.put("blockedMs", current.getBlockedTime() - start.getBlockedTime());
+            }
+            thread.put("waitedCount", current.getWaitedCount() - start.getWaitedCount());
+            if (current.getWaitedTime() >= 0 && start.getWaitedTime() >= 0) {
+                thread.put("waitedMs", current.getWaitedTime() - start.getWaitedTime());
+            }
+            if (last != null && last.getLockName() != null) {
+                thread.put("lock", last.getLockName());
+                if (last.getLockOwnerName() != null) {
+                    thread.put("lockOwner", last.getLockOwnerName());
+                }
+            }
+
+            List<Map.Entry<String, Integer>> topStacks = new ArrayList<>(stacks.entrySet());
+            topStacks.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            List<Map<String, Object>> threadStacks = new ArrayList<>();
+            for (Map.Entry<String, Integer> stack : topStacks.subList(0, Math.min(STACKS_PER_THREAD, topStacks.size()))) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("samples", stack.getValue());
+                entry.put("percent", stack.getValue() * 100 / samples);
+                entry.put("frames", List.of(stack.getKey().split("\n")));
+                threadStacks.add(entry);
+            }
+            thread.put("stacks", threadStacks);
+            return thread;
+        }
+    }
+
+    private static final class Aggregated {
+        final Thread.State state;
+        final String stack;
+        final Map<String, Integer> threadNames = new LinkedHashMap<>();
+        int samples;
+
+        Aggregated(Thread.State state, String stack) {
+            this.state = state;
+            this.stack = stack;
+        }
+
+        void add(String threadName) {
+            samples++;
+            threadNames.merge(threadName, 1, Integer::sum);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("samples", samples);
+            result.put("threads", threadNames.size());
+            result.put("threadNames", threadNames.keySet().stream().limit(NAMES_PER_STACK).toList());
+            result.put("state", state.name());
+            result.put("frames", List.of(stack.split("\n")));
+            return result;
+        }
+    }
+
+    private static final class Contended {
+        final String lock;
+        final String owner;
+        final long ownerId;
+        final Map<String, String> waiters = new LinkedHashMap<>();
+        int samples;
+
+        Contended(String lock, String owner, long ownerId) {
+            this.lock = lock;
+            this.owner = owner;
+            this.ownerId = ownerId;
+        }
+
+        void add(String threadName, Thread.State state) {
+            samples++;
+            waiters.put(threadName, state.name());
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("lock", lock);
+            result.put("owner", owner);
+            result.put("ownerId", ownerId);
+            result.put("samples", samples);
+            result.put("waiters", waiters);
+            return result;
+        }
+    }
+}
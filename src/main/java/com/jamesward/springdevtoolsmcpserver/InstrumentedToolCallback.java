@@ -0,0 +1,98 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.mcp.McpToolUtils;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * Records the latency, serialized response size and failures of a tool in {@link ToolMetrics}. A failure is a tool
+ * that throws or that returns an error, which the tools do as a map with a single {@code error} key. The session is
+ * identified by the name and version the client sent when it initialized.
+ */
+class InstrumentedToolCallback implements ToolCallback {
+
+    private static final String ERROR_PREFIX = "{\"error\":";
+
+    private final ToolCallback delegate;
+    private final ToolMetrics metrics;
+    private final String toolName;
+
+    InstrumentedToolCallback(ToolCallback delegate, ToolMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.toolName = delegate.getToolDefinition().name();
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return call(toolInput, null);
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        long startNanos = System.nanoTime();
+        String result = null;
+        try {
+            result = toolContext != null ? delegate.call(toolInput, toolContext) : delegate.call(toolInput);
+            return result;
+        } finally {
+            metrics.record(toolName, session(toolContext), System.nanoTime() - startNanos, utf8Length(result), isError(result));
+        }
+    }
+
+    /**
+     * Whether the tool threw, leaving no result, or returned an error map, which serializes to an object that starts
+     * with its {@code error} key.
+     */
+    static boolean isError(String result) {
+        return result == null || result.startsWith(ERROR_PREFIX);
+    }
+
+    private static String session(ToolContext toolContext) {
+        if (toolContext != null && toolContext.getContext().get(McpToolUtils.TOOL_CONTEXT_MCP_EXCHANGE_KEY) instanceof McpSyncServerExchange exchange) {
+            McpSchema.Implementation clientInfo = exchange.getClientInfo();
+            if (clientInfo != null) {
+                return clientInfo.name() + " " + clientInfo.version();
+            }
+        }
+        return ToolMetrics.UNKNOWN_SESSION;
+    }
+
+    /**
+     * The size of the response on the wire, counted without encoding it.
+     */
+    static long utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,411 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import jdk.jfr.EventSettings;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Profiles the application in-process with JFR for a bounded time, and summarizes the events one at a time instead of
+ * keeping them: GC pauses, allocation sites, CPU samples, contended monitors and file and socket I/O. Only one
+ * recording runs at a time, and the number of distinct sites kept per summary is capped, so memory stays bounded
+ * whatever the event rate.
+ * <p>
+ * On Java 20 and later the events are summarized as they arrive from a {@link RecordingStream}, which
+ * {@code RecordingStream.stop()} ends once the last chunk is delivered. Before that, closing the stream discards the
+ * events of the last flush period, about a second, so a plain {@link Recording} is taken instead and its dump read
+ * back with {@link RecordingFile}.
+ * <p>
+ * Only loaded when {@code jdk.jfr} is available.
+ */
+class JfrProfiler {
+
+    static final Duration MAX_DURATION = Duration.ofSeconds(60);
+
+    private static final int MAX_KEYS = 10_000;
+    private static final String OTHER = "(other)";
+    private static final Duration EXECUTION_SAMPLE_PERIOD = Duration.ofMillis(10);
+    private static final Duration MONITOR_THRESHOLD = Duration.ofMillis(1);
+    private static final Duration IO_THRESHOLD = Duration.ofMillis(1);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * {@code RecordingStream.stop()}, added in Java 20, or {@code null} before.
+     */
+    private static final MethodHandle STREAM_STOP = streamStop();
+
+    enum Summary {
+        GC, ALLOCATION, CPU, LOCKS, IO;
+
+        /**
+         * Parses a comma separated list, returning {@code null} when a name is unknown.
+         */
+        static Set<Summary> parse(String summaries) {
+            if (summaries == null || summaries.isBlank()) {
+                return EnumSet.allOf(Summary.class);
+            }
+            Set<Summary> result = EnumSet.noneOf(Summary.class);
+            for (String name : summaries.split(",")) {
+                try {
+                    result.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+            return result;
+        }
+    }
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Returns {@code null} when another recording is running.
+     */
+    Map<String, Object> profile(Duration duration, Set<Summary> summaries, int top) throws InterruptedException, IOException {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            Aggregates aggregates = new Aggregates();
+            long elapsedNanos = STREAM_STOP != null
+                    ? stream(duration, summaries, aggregates)
+                    : record(duration, summaries, aggregates);
+            return aggregates.toMap(summaries, elapsedNanos, top);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Summarizes the events as they arrive, and returns the time recorded once the stream thread delivered the last
+     * of them.
+     */
+    private static long stream(Duration duration, Set<Summary> summaries, Aggregates aggregates) throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+        long startNanos;
+        long stopNanos;
+        try (RecordingStream stream = new RecordingStream()) {
+            stream.setReuse(true);
+            stream.setOrdered(false);
+            enable(summaries, stream::enable, aggregates).forEach(stream::onEvent);
+            stream.onClose(closed::countDown);
+            startNanos = System.nanoTime();
+            stream.startAsync();
+            try {
+                Thread.sleep(duration.toMillis());
+            } finally {
+                try {
+                    STREAM_STOP.invoke(stream);
+                } catch (Throwable e) {
+                    // the stream is closed below either way
+                }
+                stopNanos = System.nanoTime();
+            }
+        }
+        if (!closed.await(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("the JFR stream did not close within " + CLOSE_TIMEOUT.toSeconds() + "s");
+        }
+        return stopNanos - startNanos;
+    }
+
+    /**
+     * Records to the disk repository, reads the dump back on this thread once the recording is stopped, and returns
+     * the time recorded.
+     */
+    private static long record(Duration duration, Set<Summary> summaries, Aggregates aggregates) throws InterruptedException, IOException {
+        Path dump = Files.createTempFile("devtools-mcp-", ".jfr");
+        try (Recording recording = new Recording()) {
+            Map<String, Consumer<RecordedEvent>> handlers = enable(summaries, recording::enable, aggregates);
+            long startNanos = System.nanoTime();
+            recording.start();
+            try {
+                Thread.sleep(duration.toMillis());
+            } finally {
+                recording.stop();
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            recording.dump(dump);
+            try (RecordingFile events = new RecordingFile(dump)) {
+                while (events.hasMoreEvents()) {
+                    RecordedEvent event = events.readEvent();
+                    Consumer<RecordedEvent> handler = handlers.get(event.getEventType().getName());
+                    if (handler != null) {
+                        handler.accept(event);
+                    }
+                }
+            }
+            return elapsedNanos;
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    /**
+     * Enables the events of the summaries, and returns the handler of each event type.
+     */
+    private static Map<String, Consumer<RecordedEvent>> enable(Set<Summary> summaries, Function<String, EventSettings> enable,
+                                                               Aggregates aggregates) {
+        Map<String, Consumer<RecordedEvent>> handlers = new LinkedHashMap<>();
+        if (summaries.contains(Summary.GC)) {
+            enable.apply("jdk.GarbageCollection");
+            handlers.put("jdk.GarbageCollection", aggregates::garbageCollection);
+        }
+        if (summaries.contains(Summary.ALLOCATION)) {
+            enable.apply("jdk.ObjectAllocationSample").withStackTrace();
+            handlers.put("jdk.ObjectAllocationSample", aggregates::allocation);
+        }
+        if (summaries.contains(Summary.CPU)) {
+            enable.apply("jdk.ExecutionSample").withPeriod(EXECUTION_SAMPLE_PERIOD);
+            handlers.put("jdk.ExecutionSample", aggregates::executionSample);
+        }
+        if (summaries.contains(Summary.LOCKS)) {
+            enable.apply("jdk.JavaMonitorEnter").withThreshold(MONITOR_THRESHOLD).withStackTrace();
+            handlers.put("jdk.JavaMonitorEnter", aggregates::monitorEnter);
+        }
+        if (summaries.contains(Summary.IO)) {
+            for (String event : List.of("jdk.FileRead", "jdk.FileWrite", "jdk.SocketRead", "jdk.SocketWrite")) {
+                enable.apply(event).withThreshold(IO_THRESHOLD).withStackTrace();
+                handlers.put(event, aggregates::io);
+            }
+        }
+        return handlers;
+    }
+
+    private static MethodHandle streamStop() {
+        if (Runtime.version().feature() < 20) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().findVirtual(RecordingStream.class, "stop", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Aggregates the events on the thread that dispatches them, read once the last one is dispatched.
+     */
+    private static final class Aggregates {
+        final LatencyHistogram gcPauses = new LatencyHistogram();
+        final Map<String, Long> gcByName = new HashMap<>();
+        final Map<String, Long> gcByCause = new HashMap<>();
+        long longestPauseNanos;
+
+        final Map<String, Long> allocatedByClass = new HashMap<>();
+        final Map<String, Long> allocatedBySite = new HashMap<>();
+        long allocatedBytes;
+
+        final Map<String, Long> selfSamples = new HashMap<>();
+        final Map<String, Long> totalSamples = new HashMap<>();
+        long executionSamples;
+
+        final Map<String, Timed> monitors = new HashMap<>();
+        final Map<String, Timed> io = new HashMap<>();
+
+        synchronized void garbageCollection(RecordedEvent event) {
+            long pause = event.getDuration("sumOfPauses").toNanos();
+            gcPauses.record(pause);
+            longestPauseNanos = Math.max(longestPauseNanos, event.getDuration("longestPause").toNanos());
+            add(gcByName, event.getString("name"), 1);
+            add(gcByCause, event.getString("cause"), 1);
+        }
+
+        synchronized void allocation(RecordedEvent event) {
+            long weight = event.getLong("weight");
+            RecordedClass objectClass = event.getClass("objectClass");
+            allocatedBytes += weight;
+            add(allocatedByClass, objectClass != null ? objectClass.getName() : "unknown", weight);
+            add(allocatedBySite, topFrame(event.getStackTrace(), true), weight);
+        }
+
+        synchronized void executionSample(RecordedEvent event) {
+            executionSamples++;
+            RecordedStackTrace stackTrace = event.getStackTrace();
+            add(selfSamples, topFrame(stackTrace, true), 1);
+            if (stackTrace != null) {
+                // count each method once per sample, however often it recurses
+                Set<String> methods = new HashSet<>();
+                for (RecordedFrame frame : stackTrace.getFrames()) {
+                    if (frame.isJavaFrame() && methods.add(method(frame, false))) {
+                        add(totalSamples, method(frame, false), 1);
+                    }
+                }
+            }
+        }
+
+        synchronized void monitorEnter(RecordedEvent event) {
+            RecordedClass monitorClass = event.getClass("monitorClass");
+            String key = (monitorClass != null ? monitorClass.getName() : "unknown") + " at " + topFrame(event.getStackTrace(), true);
+            timed(monitors, key).add(event.getDuration().toNanos(), 0);
+        }
+
+        synchronized void io(RecordedEvent event) {
+            String type = event.getEventType().getName();
+            boolean file = type.startsWith("jdk.File");
+            String target = file
+                    ? event.getString("path")
+                    : event.getString("host") + ":" + event.getInt("port");
+            String key = (file ? "file " : "socket ") + (target != null && !target.isEmpty() ? target : "unknown")
+                    + " at " + topFrame(event.getStackTrace(), true);
+            long bytes = type.endsWith("Read") ? event.getLong("bytesRead") : event.getLong("bytesWritten");
+            timed(io, key).add(event.getDuration().toNanos(), Math.max(bytes, 0));
+        }
+
+        synchronized Map<String, Object> toMap(Set<Summary> summaries, long elapsedNanos, int top) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("durationMs", elapsedNanos / 1_000_000);
+
+            if (summaries.contains(Summary.GC)) {
+                Map<String, Object> gc = new LinkedHashMap<>();
+                LatencyHistogram.Snapshot pauses = gcPauses.snapshot();
+                Map<String, Object> pauseDistribution = pauses.toMillisMap();
+                pauseDistribution.put("totalMs", pauses.sum / 1_000_000.0);
+                pauseDistribution.put("longestSinglePauseMs", longestPauseNanos / 1_000_000.0);
+                gc.put("collections", pauses.count);
+                gc.put("pauses", pauseDistribution);
+                gc.put("pausePercent", Math.round(pauses.sum * 1000.0 / elapsedNanos) / 10.0);
+                gc.put("byCollector", gcByName);
+                gc.put("byCause", gcByCause);
+                result.put("gc", gc);
+            }
+
+            if (summaries.contains(Summary.ALLOCATION)) {
+                Map<String, Object> allocation = new LinkedHashMap<>();
+                allocation.put("sampledBytes", allocatedBytes);
+                allocation.put("bytesPerSecond", elapsedNanos > 0 ? allocatedBytes * 1_000_000_000L / elapsedNanos : 0);
+                allocation.put("topClasses", top(allocatedByClass, allocatedBytes, top, "class", "bytes"));
+                allocation.put("topSites", top(allocatedBySite, allocatedBytes, top, "site", "bytes"));
+                result.put("allocation", allocation);
+            }
+
+            if (summaries.contains(Summary.CPU)) {
+                Map<String, Object> cpu = new LinkedHashMap<>();
+                cpu.put("samples", executionSamples);
+                cpu.put("samplePeriodMs", EXECUTION_SAMPLE_PERIOD.toMillis());
+                cpu.put("topSelf", top(selfSamples, executionSamples, top, "frame", "samples"));
+                cpu.put("topTotal", top(totalSamples, executionSamples, top, "method", "samples"));
+                result.put("cpu", cpu);
+            }
+
+            if (summaries.contains(Summary.LOCKS)) {
+                Map<String, Object> locks = new LinkedHashMap<>();
+                locks.put("thresholdMs", MONITOR_THRESHOLD.toMillis());
+                locks.put("topMonitors", top(monitors, top, "monitor"));
+                result.put("locks", locks);
+            }
+
+            if (summaries.contains(Summary.IO)) {
+                Map<String, Object> ioSummary = new LinkedHashMap<>();
+                ioSummary.put("thresholdMs", IO_THRESHOLD.toMillis());
+                ioSummary.put("topTargets", top(io, top, "target"));
+                result.put("io", ioSummary);
+            }
+            return result;
+        }
+
+        private static void add(Map<String, Long> counts, String key, long value) {
+            String bounded = counts.size() < MAX_KEYS || counts.containsKey(key) ? key : OTHER;
+            counts.merge(bounded != null ? bounded : "unknown", value, Long::sum);
+        }
+
+        private static Timed timed(Map<String, Timed> timings, String key) {
+            String bounded = timings.size() < MAX_KEYS || timings.containsKey(key) ? key : OTHER;
+            return timings.computeIfAbsent(bounded, k -> new Timed());
+        }
+
+        private static List<Map<String, Object>> top(Map<String, Long> counts, long total, int top, String keyName, String valueName) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(top, entries.size()))) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put(keyName, entry.getKey());
+                row.put(valueName, entry.getValue());
+                row.put("percent", total > 0 ? Math.round(entry.getValue() * 1000.0 / total) / 10.0 : 0);
+                result.add(row);
+            }
+            return result;
+        }
+
+        private static List<Map<String, Object>> top(Map<String, Timed> timings, int top, String keyName) {
+            List<Map.Entry<String, Timed>> entries = new ArrayList<>(timings.entrySet());
+            entries.sort(Comparator.comparingLong((Map.Entry<String, Timed> entry) -> entry.getValue().totalNanos).reversed());
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Map.Entry<String, Timed> entry : entries.subList(0, Math.min(top, entries.size()))) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put(keyName, entry.getKey());
+                row.putAll(entry.getValue().toMap());
+                result.add(row);
+            }
+            return result;
+        }
+    }
+
+    private static final class Timed {
+        long count;
+        long totalNanos;
+        long maxNanos;
+        long bytes;
+
+        void add(long nanos, long bytes) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            this.bytes += bytes;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", count);
+            result.put("totalMs", totalNanos / 1_000_000.0);
+            result.put("maxMs", maxNanos / 1_000_000.0);
+            if (bytes > 0) {
+                result.put("bytes", bytes);
+            }
+            return result;
+        }
+    }
+
+    private static String topFrame(RecordedStackTrace stackTrace, boolean lineNumber) {
+        if (stackTrace != null) {
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                if (frame.isJavaFrame()) {
+                    return method(frame, lineNumber);
+                }
+            }
+        }
+        return "unknown";
+    }
+
+    private static String method(RecordedFrame frame, boolean lineNumber) {
+        String method = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+        return lineNumber && frame.getLineNumber() > 0 ? method + ":" + frame.getLineNumber() : method;
+    }
+}
@@ -0,0 +1,69 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Property;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Copies the events of the Log4j2 root logger into a {@link LogRingBuffer}. Log4j2 may reuse event objects, so the
+ * fields are copied before {@link #append(LogEvent)} returns.
+ */
+final class Log4j2LogCapture extends AbstractAppender implements LogCapture.Attachment {
+
+    private static final String NAME = "devtools-mcp";
+
+    private final LogRingBuffer buffer;
+    private final LoggerContext context;
+
+    private Log4j2LogCapture(LogRingBuffer buffer, LoggerContext context) {
+        super(NAME, (Filter) null, null, true, Property.EMPTY_ARRAY);
+        this.buffer = buffer;
+        this.context = context;
+    }
+
+    /**
+     * Attaches to the root logger, or returns {@code null} when the Log4j API is not backed by Log4j2 core.
+     */
+    static Log4j2LogCapture attach(LogRingBuffer buffer) {
+        if (!(LogManager.getContext(false) instanceof LoggerContext context)) {
+            return null;
+        }
+        Log4j2LogCapture appender = new Log4j2LogCapture(buffer, context);
+        appender.start();
+        Configuration configuration = context.getConfiguration();
+        configuration.addAppender(appender);
+        configuration.getRootLogger().addAppender(appender, null, null);
+        context.updateLoggers();
+        return appender;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        buffer.append(event.getTimeMillis(), LogRingBuffer.level(event.getLevel().name()), event.getLoggerName(),
+                event.getThreadName(), event.getMessage().getFormattedMessage(), stackTrace(event.getThrown()));
+    }
+
+    private static String stackTrace(Throwable throwable) {
+        if (throwable == null) {
+            return null;
+        }
+        StringWriter stackTrace = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(stackTrace));
+        return stackTrace.toString();
+    }
+
+    @Override
+    public void detach() {
+        Configuration configuration = context.getConfiguration();
+        configuration.getRootLogger().removeAppender(NAME);
+        context.updateLoggers();
+        stop();
+    }
+}
@@ -0,0 +1,73 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Attaches an appender to the root logger of Logback or Log4j2, whichever backs the application's logging, that
+ * copies every event into a {@link LogRingBuffer}.
+ * <p>
+ * The buffer and the appender are static, {@linkplain com.jamesward.springdevtoolsmcpserver kept across restarts}, and
+ * {@link LogCaptureListener} attaches the appender again when a restart re-initializes the logging system. The appender
+ * is never detached when a context closes, so the events logged while the application restarted, including the errors
+ * that made a restart fail, are still there. This bean only reads the buffer, it attaches the appender itself when the
+ * listener did not run, e.g. when the context is not started by a {@code SpringApplication}.
+ */
+class LogCapture {
+
+    private static LogRingBuffer buffer;
+    private static Attachment attachment;
+
+    /**
+     * @param capacity the number of events kept, only used when the buffer is first created
+     */
+    LogCapture(int capacity) {
+        synchronized (LogCapture.class) {
+            if (attachment == null) {
+                attach(capacity);
+            }
+        }
+    }
+
+    /**
+     * Attaches the appender to the logging system as it is configured now, replacing the appender attached before,
+     * which a re-initialization of the logging system has usually removed already.
+     *
+     * @param capacity the number of events kept, only used when the buffer is first created
+     */
+    static synchronized void attach(int capacity) {
+        if (buffer == null) {
+            buffer = new LogRingBuffer(capacity);
+        }
+        detach();
+        ClassLoader classLoader = LogCapture.class.getClassLoader();
+        if (ClassUtils.isPresent("ch.qos.logback.classic.LoggerContext", classLoader)) {
+            attachment = LogbackLogCapture.attach(buffer);
+        }
+        if (attachment == null && ClassUtils.isPresent("org.apache.logging.log4j.core.LoggerContext", classLoader)) {
+            attachment = Log4j2LogCapture.attach(buffer);
+        }
+    }
+
+    /**
+     * Detaches the appender, the events already captured are kept.
+     */
+    static synchronized void detach() {
+        if (attachment != null) {
+            attachment.detach();
+            attachment = null;
+        }
+    }
+
+    /**
+     * The buffer, or {@code null} when neither Logback nor Log4j2 backs the application's logging.
+     */
+    LogRingBuffer logs() {
+        synchronized (LogCapture.class) {
+            return attachment != null ? buffer : null;
+        }
+    }
+
+    interface Attachment {
+        void detach();
+    }
+}
@@ -0,0 +1,43 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.logging.LoggingApplicationListener;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Attaches the {@link LogCapture} appender once {@link LoggingApplicationListener} has initialized the logging
+ * system, when {@code devtools.mcp.logs.enabled} is not turned off. Logback and Log4j2 drop their appenders when they
+ * are re-initialized, which {@link LoggingApplicationListener} does for every devtools restart, so the appender is
+ * attached again each time, before the context that may fail to start is created.
+ * <p>
+ * Registered in {@code META-INF/spring.factories} as listeners of the environment being prepared run before any
+ * context exists. They also run again for every devtools restart.
+ */
+public class LogCaptureListener implements SmartApplicationListener {
+
+    static final String ENABLED_PROPERTY = "devtools.mcp.logs.enabled";
+    static final String CAPACITY_PROPERTY = "devtools.mcp.logs.capacity";
+    static final int DEFAULT_CAPACITY = 4096;
+
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        return ApplicationEnvironmentPreparedEvent.class.isAssignableFrom(eventType);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        ConfigurableEnvironment environment = ((ApplicationEnvironmentPreparedEvent) event).getEnvironment();
+        if (environment.getProperty(ENABLED_PROPERTY, Boolean.class, true)) {
+            LogCapture.attach(environment.getProperty(CAPACITY_PROPERTY, Integer.class, DEFAULT_CAPACITY));
+        } else {
+            LogCapture.detach();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return LoggingApplicationListener.DEFAULT_ORDER + 1;
+    }
+}
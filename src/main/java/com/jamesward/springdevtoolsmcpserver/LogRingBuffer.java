@@ -0,0 +1,214 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Fixed-capacity buffer of the latest log events. The slots are allocated up front and reused: a logging thread
+ * claims the next sequence number with a single atomic increment and writes the event into the slot that sequence
+ * maps to, so logging threads do not wait on each other or on readers. Each slot is a seqlock: it holds the sequence
+ * of the event it contains, which the writer negates while writing and sets once done, and a reader only keeps an
+ * event if the slot held the same sequence before and after it copied the fields.
+ * <p>
+ * The only wait is when the sequences wrap around the whole ring while an event is still being written, so that two
+ * writers map to the same slot: the slot is taken with a compare-and-set, the newer event waits for the older one to
+ * be written, and an older event that finds the slot already taken by a newer one is dropped, as it would have been
+ * overwritten anyway. Without it both writers could interleave their fields under the sequence of either.
+ * <p>
+ * A slot that is overwritten while it is read is skipped. Sequences start at 1 and increase for the lifetime of the
+ * buffer, so they serve as cursors: a read stops at the first sequence that is claimed but not written yet, and its
+ * cursor is the sequence before it, so that the event is returned by the next read once it is written.
+ */
+class LogRingBuffer {
+
+    static final String[] LEVELS = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(Slot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    static int level(String level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equalsIgnoreCase(level)) {
+                return i;
+            }
+        }
+        return "FATAL".equalsIgnoreCase(level) ? LEVELS.length - 1 : -1;
+    }
+
+    void append(long timestamp, int level, String logger, String thread, String message, String throwable) {
+        long claimed = sequence.incrementAndGet();
+        Slot slot = slots[(int) (claimed & mask)];
+        while (true) {
+            long current = slot.sequence;
+            if (current < 0) {
+                if (-current > claimed) {
+                    return;
+                }
+                Thread.onSpinWait();
+            } else if (current > claimed) {
+                return;
+            } else if (SEQUENCE.compareAndSet(slot, current, -claimed)) {
+                break;
+            }
+        }
+        slot.timestamp = timestamp;
+        slot.level = level;
+        slot.logger = logger;
+        slot.thread = thread;
+        slot.message = message;
+        slot.throwable = throwable;
+        slot.sequence = claimed;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * The sequence of the latest event appended, 0 if there is none.
+     */
+    long latest() {
+        return sequence.get();
+    }
+
+    /**
+     * The oldest sequence still in the buffer.
+     */
+    long oldest() {
+        return Math.max(1, sequence.get() - slots.length + 1);
+    }
+
+    /**
+     * Up to {@code limit} events after {@code after} that match {@code filter}, oldest first.
+     */
+    Page after(long after, Predicate<Event> filter, int limit) {
+        long latest = sequence.get();
+        List<Event> events = new ArrayList<>(Math.min(limit, 256));
+        long next = Math.max(after + 1, latest - slots.length + 1);
+        for (; next <= latest && events.size() < limit; next++) {
+            Event event = read(next);
+            if (event == UNPUBLISHED) {
+                break;
+            }
+            if (event != null && filter.test(event)) {
+                events.add(event);
+            }
+        }
+        return new Page(events, Math.max(after, next - 1));
+    }
+
+    /**
+     * The {@code limit} latest events that match {@code filter}, oldest first. The events after a sequence that is not
+     * written yet are left to the next read.
+     */
+    Page latest(Predicate<Event> filter, int limit) {
+        long latest = sequence.get();
+        long oldest = Math.max(1, latest - slots.length + 1);
+        long cursor = latest;
+        List<Event> events = new ArrayList<>(Math.min(limit, 256));
+        for (long next = latest; next >= oldest && events.size() < limit; next--) {
+            Event event = read(next);
+            if (event == UNPUBLISHED) {
+                events.clear();
+                cursor = next - 1;
+            } else if (event != null && filter.test(event)) {
+                events.add(event);
+            }
+        }
+        Collections.reverse(events);
+        return new Page(events, cursor);
+    }
+
+    /**
+     * The event of sequence {@code expected}, {@code null} if it was overwritten or dropped, or {@link #UNPUBLISHED}
+     * if it is claimed but not written yet.
+     */
+    private Event read(long expected) {
+        Slot slot = slots[(int) (expected & mask)];
+        long current = slot.sequence;
+        if (current != expected) {
+            // a slot holds an older sequence, or is being written under one, until the expected event is written
+            return (current >= 0 ? current : -current) < expected || current == -expected ? UNPUBLISHED : null;
+        }
+        Event event = new Event(expected, slot.timestamp, slot.level, slot.logger, slot.thread, slot.message, slot.throwable);
+        VarHandle.loadLoadFence();
+        return slot.sequence == expected ? event : null;
+    }
+
+    private static final Event UNPUBLISHED = new Event(0, 0, -1, null, null, null, null);
+
+    /**
+     * Events read from the buffer, and the sequence to read the next events after.
+     */
+    static final class Page {
+        final List<Event> events;
+        final long cursor;
+
+        Page(List<Event> events, long cursor) {
+            this.events = events;
+            this.cursor = cursor;
+        }
+    }
+
+    private static final class Slot {
+        volatile long sequence;
+        long timestamp;
+        int level;
+        String logger;
+        String thread;
+        String message;
+        String throwable;
+    }
+
+    static final class Event {
+        final long sequence;
+        final long timestamp;
+        final int level;
+        final String logger;
+        final String thread;
+        final String message;
+        final String throwable;
+
+        Event(long sequence, long timestamp, int level, String logger, String thread, String message, String throwable) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.level = level;
+            this.logger = logger;
+            this.thread = thread;
+            this.message = message;
+            this.throwable = throwable;
+        }
+
+        String levelName() {
+            return level >= 0 ? LEVELS[level] : "OTHER";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copies the events of the Logback root logger into a {@link LogRingBuffer}. The appender is unsynchronized, the
+ * buffer does not need the lock {@code AppenderBase} takes for every event.
+ */
+final class LogbackLogCapture extends UnsynchronizedAppenderBase<ILoggingEvent> implements LogCapture.Attachment {
+
+    private static final String NAME = "devtools-mcp";
+
+    private final LogRingBuffer buffer;
+    private final Logger root;
+
+    private LogbackLogCapture(LogRingBuffer buffer, Logger root) {
+        this.buffer = buffer;
+        this.root = root;
+    }
+
+    /**
+     * Attaches to the root logger, or returns {@code null} when SLF4J is not bound to Logback.
+     */
+    static LogbackLogCapture attach(LogRingBuffer buffer) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return null;
+        }
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        LogbackLogCapture appender = new LogbackLogCapture(buffer, root);
+        appender.setContext(context);
+        appender.setName(NAME);
+        appender.start();
+        root.addAppender(appender);
+        return appender;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        IThrowableProxy throwable = event.getThrowableProxy();
+        buffer.append(event.getTimeStamp(), LogRingBuffer.level(event.getLevel().toString()), event.getLoggerName(),
+                event.getThreadName(), event.getFormattedMessage(), throwable != null ? ThrowableProxyUtil.asString(throwable) : null);
+    }
+
+    @Override
+    public void detach() {
+        root.detachAppender(this);
+        stop();
+    }
+}
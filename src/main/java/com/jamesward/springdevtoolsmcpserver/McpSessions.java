@@ -0,0 +1,325 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bounds what the SSE transport holds for each session. The transport pushes events into an unbounded buffer per
+ * session, so a client that stops reading, or reads slower than large tool responses are produced, would make the
+ * buffer grow without limit. This filter sits between that buffer and the connection: events wait in a queue bounded
+ * by {@code devtools.mcp.session.max-queued-events} and {@code devtools.mcp.session.max-queued-bytes}, and are only
+ * written as the connection asks for them. A session whose queue overflows is closed, which the client sees as a
+ * dropped connection to reconnect.
+ * <p>
+ * Sessions that neither sent a message nor took an event for {@code devtools.mcp.session.idle-timeout} are closed
+ * as well, so that clients that went away without closing their connection do not keep their session. A session
+ * quiet for half of that time gets an SSE comment as a ping, so a client that only listens stays open for as long as
+ * it keeps reading, while a client that stopped reading leaves the ping queued and is closed.
+ * <p>
+ * Messages can also be pushed to initialized sessions directly, for notifications that are not tied to the MCP
+ * server of the current application context, and listeners are told when a client has initialized its session.
+ */
+class McpSessions implements HandlerFilterFunction<ServerResponse, ServerResponse>, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(McpSessions.class);
+
+    // the first event of a session is the endpoint to post messages to, with the session id
+    private static final Pattern SESSION_ID = Pattern.compile("sessionId=([^&\\s]+)");
+    // a comment line, which SSE clients ignore
+    private static final String PING = ": ping\n\n";
+
+    private final String ssePath;
+    private final String messagePath;
+    private final int maxQueuedEvents;
+    private final long maxQueuedBytes;
+    private final Duration idleTimeout;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> initializedListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final Disposable evictor;
+
+    /**
+     * @param idleTimeout {@link Duration#ZERO} to keep idle sessions
+     */
+    McpSessions(String ssePath, String messagePath, int maxQueuedEvents, long maxQueuedBytes, Duration idleTimeout) {
+        this.ssePath = ssePath;
+        this.messagePath = messagePath;
+        this.maxQueuedEvents = maxQueuedEvents;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.idleTimeout = idleTimeout;
+        if (idleTimeout.isZero() || idleTimeout.isNegative()) {
+            this.evictor = null;
+        } else {
+            Duration period = idleTimeout.dividedBy(4).compareTo(Duration.ofSeconds(1)) > 0 ? idleTimeout.dividedBy(4) : Duration.ofSeconds(1);
+            this.evictor = Flux.interval(period, Schedulers.parallel()).subscribe(tick -> evictIdle());
+        }
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        String path = request.requestPath().pathWithinApplication().value();
+        if (path.equals(messagePath)) {
+            Session session = request.queryParam("sessionId").map(sessions::get).orElse(null);
+            if (session == null) {
+                return next.handle(request);
+            }
+            session.lastActivityNanos = System.nanoTime();
+            if (session.initialized) {
+                return next.handle(request);
+            }
+            // the transport reads the body into a string too, so reading it first costs little and stops once initialized
+            return request.bodyToMono(String.class).defaultIfEmpty("").flatMap(body -> {
+                boolean initialized = body.contains("\"notifications/initialized\"");
+                return next.handle(ServerRequest.from(request).body(body).build()).doOnSuccess(response -> {
+                    if (initialized) {
+                        session.initialized = true;
+                        initializedListeners.forEach(listener -> notifyInitialized(listener, session.id));
+                    }
+                });
+            });
+        }
+        if (path.equals(ssePath) && HttpMethod.GET.equals(request.method())) {
+            return next.handle(request).map(response -> new BoundedServerResponse(response, new Session()));
+        }
+        return next.handle(request);
+    }
+
+    /**
+     * Calls {@code listener} with the id of each session whose client sends its {@code notifications/initialized}.
+     */
+    void onInitialized(Consumer<String> listener) {
+        initializedListeners.add(listener);
+    }
+
+    private static void notifyInitialized(Consumer<String> listener, String sessionId) {
+        try {
+            listener.accept(sessionId);
+        } catch (RuntimeException e) {
+            logger.debug("Failed to notify the initialization of MCP session " + sessionId, e);
+        }
+    }
+
+    /**
+     * Sends a JSON-RPC message to an initialized session, or to all of them when {@code sessionId} is {@code null}.
+     * The message goes through the same bounded queue as the transport's own events.
+     */
+    void send(String sessionId, String message) {
+        String event = "event:message\ndata:" + message + "\n\n";
+        if (sessionId != null) {
+            Session session = sessions.get(sessionId);
+            if (session != null && session.initialized) {
+                session.push(event);
+            }
+            return;
+        }
+        for (Session session : sessions.values()) {
+            if (session.initialized) {
+                session.push(event);
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Session session : sessions.values()) {
+            long idleNanos = now - session.lastActivityNanos;
+            if (idleNanos > idleTimeout.toNanos()) {
+                if (sessions.remove(session.id, session)) {
+                    evicted.incrementAndGet();
+                    logger.debug("Closing MCP session " + session.id + " idle for more than " + idleTimeout);
+                    session.closed.tryEmitEmpty();
+                }
+            } else if (idleNanos > idleTimeout.toNanos() / 2) {
+                session.push(PING);
+            }
+        }
+    }
+
+    Map<String, Object> toMap() {
+        long queuedBytes = 0;
+        long largestQueuedBytes = 0;
+        for (Session session : sessions.values()) {
+            long bytes = session.queuedBytes.get();
+            queuedBytes += bytes;
+            largestQueuedBytes = Math.max(largestQueuedBytes, bytes);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("open", sessions.size());
+        result.put("opened", opened.get());
+        result.put("queuedBytes", queuedBytes);
+        result.put("largestQueuedBytes", largestQueuedBytes);
+        result.put("closedOnOverflow", overflowed.get());
+        result.put("closedWhenIdle", evicted.get());
+        result.put("maxQueuedEvents", maxQueuedEvents);
+        result.put("maxQueuedBytes", maxQueuedBytes);
+        result.put("idleTimeout", idleTimeout.toString());
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        if (evictor != null) {
+            evictor.dispose();
+        }
+    }
+
+    private final class Session {
+        final Sinks.Empty<Void> closed = Sinks.empty();
+        final AtomicLong queuedBytes = new AtomicLong();
+        // events sent by this class rather than the transport, guarded by this
+        final Sinks.Many<String> pushed = Sinks.many().unicast().onBackpressureBuffer();
+        volatile long lastActivityNanos = System.nanoTime();
+        volatile String id;
+        volatile boolean initialized;
+
+        synchronized void push(String event) {
+            pushed.tryEmitNext(event);
+        }
+
+        synchronized void completePushed() {
+            pushed.tryEmitComplete();
+        }
+
+        /**
+         * Counts an event into the queue, registering the session on its first event.
+         */
+        void enqueue(DataBuffer event, SynchronousSink<DataBuffer> sink) {
+            if (id == null) {
+                Matcher matcher = SESSION_ID.matcher(event.toString(event.readPosition(), event.readableByteCount(), StandardCharsets.UTF_8));
+                if (matcher.find()) {
+                    id = matcher.group(1);
+                    sessions.put(id, this);
+                    opened.incrementAndGet();
+                }
+            }
+            if (queuedBytes.addAndGet(event.readableByteCount()) > maxQueuedBytes) {
+                DataBufferUtils.release(event);
+                sink.error(new QueueOverflowException("more than " + maxQueuedBytes + " bytes queued"));
+                return;
+            }
+            sink.next(event);
+        }
+
+        void close() {
+            if (id != null) {
+                sessions.remove(id, this);
+            }
+        }
+    }
+
+    private static final class QueueOverflowException extends RuntimeException {
+        QueueOverflowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private final class BoundedServerResponse implements ServerResponse {
+        private final ServerResponse delegate;
+        private final Session session;
+
+        BoundedServerResponse(ServerResponse delegate, Session session) {
+            this.delegate = delegate;
+            this.session = session;
+        }
+
+        @Override
+        public HttpStatusCode statusCode() {
+            return delegate.statusCode();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public int rawStatusCode() {
+            return delegate.rawStatusCode();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return delegate.headers();
+        }
+
+        @Override
+        public MultiValueMap<String, ResponseCookie> cookies() {
+            return delegate.cookies();
+        }
+
+        @Override
+        public Mono<Void> writeTo(ServerWebExchange exchange, Context context) {
+            ServerWebExchange bounded = exchange.mutate().response(new BoundedHttpResponse(exchange.getResponse(), session)).build();
+            return delegate.writeTo(bounded, context).doFinally(signal -> session.close());
+        }
+    }
+
+    private final class BoundedHttpResponse extends ServerHttpResponseDecorator {
+        private final Session session;
+
+        BoundedHttpResponse(ServerHttpResponse delegate, Session session) {
+            super(delegate);
+            this.session = session;
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            Flux<DataBuffer> transportEvents = Flux.from(body)
+                    .concatMap(DataBufferUtils::join)
+                    .doFinally(signal -> session.completePushed());
+            Flux<DataBuffer> pushedEvents = session.pushed.asFlux()
+                    .map(event -> bufferFactory().wrap(event.getBytes(StandardCharsets.UTF_8)));
+            Flux<DataBuffer> events = transportEvents.mergeWith(pushedEvents)
+                    .<DataBuffer>handle(session::enqueue)
+                    .onBackpressureBuffer(maxQueuedEvents, DataBufferUtils::release, BufferOverflowStrategy.ERROR)
+                    .doOnNext(event -> {
+                        session.queuedBytes.addAndGet(-event.readableByteCount());
+                        // the connection asked for it, so the client is still reading
+                        session.lastActivityNanos = System.nanoTime();
+                    })
+                    .takeUntilOther(session.closed.asMono())
+                    .onErrorResume(e -> e instanceof QueueOverflowException || Exceptions.isOverflow(e), e -> {
+                        overflowed.incrementAndGet();
+                        logger.warn("Closing MCP session " + session.id + " whose client is not keeping up: " + e.getMessage());
+                        return Flux.empty();
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            return super.writeAndFlushWith(events.map(Mono::just));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The callbacks of the {@code @Tool} methods of the tool objects, each bounded by {@link BoundedToolCallback} and
+ * recorded by {@link InstrumentedToolCallback}. A single bean that the sync or async server is built from, so that
+ * a new tool is only added to the list of tool objects.
+ */
+class McpToolCallbacks {
+
+    private final List<ToolCallback> callbacks;
+
+    McpToolCallbacks(List<Object> toolObjects, ToolMetrics toolMetrics, int maxConcurrentTools) {
+        MethodToolCallbackProvider toolCallbackProvider = MethodToolCallbackProvider.builder()
+            .toolObjects(toolObjects.toArray())
+            .build();
+
+        // one set of permits shared by all the tools
+        Semaphore permits = new Semaphore(maxConcurrentTools);
+        List<ToolCallback> callbacks = new ArrayList<>();
+        for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
+            callbacks.add(new InstrumentedToolCallback(new BoundedToolCallback(toolCallback, permits), toolMetrics));
+        }
+        this.callbacks = List.copyOf(callbacks);
+    }
+
+    List<ToolCallback> callbacks() {
+        return callbacks;
+    }
+}
@@ -0,0 +1,131 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import reactor.core.publisher.Mono;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tools off the transport threads for the asynchronous MCP server, on virtual threads when the JVM supports them
+ * and on a bounded pool otherwise. Each call has a timeout, and a call that times out or is cancelled by the client
+ * interrupts the thread running the tool.
+ * <p>
+ * Configured with {@code devtools.mcp.tool-threads}, {@code devtools.mcp.tool-queue-capacity},
+ * {@code devtools.mcp.virtual-threads}, {@code devtools.mcp.tool-timeout} and per tool with
+ * {@code devtools.mcp.tool-timeouts.<toolName>}.
+ */
+class McpToolExecutor implements DisposableBean {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Environment environment;
+    private final ExecutorService executorService;
+    private final Duration defaultTimeout;
+
+    McpToolExecutor(Environment environment) {
+        this.environment = environment;
+        this.defaultTimeout = duration(environment.getProperty("devtools.mcp.tool-timeout"), DEFAULT_TIMEOUT);
+
+        ExecutorService virtualThreads = environment.getProperty("devtools.mcp.virtual-threads", Boolean.class, true) ? virtualThreadExecutor() : null;
+        if (virtualThreads != null) {
+            this.executorService = virtualThreads;
+        } else {
+            int threads = environment.getProperty("devtools.mcp.tool-threads", Integer.class, Math.max(2, Runtime.getRuntime().availableProcessors()));
+            int queueCapacity = environment.getProperty("devtools.mcp.tool-queue-capacity", Integer.class, 100);
+            this.executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new DaemonThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    List<McpServerFeatures.AsyncToolSpecification> toAsyncToolSpecifications(List<McpServerFeatures.SyncToolSpecification> tools) {
+        return tools.stream().map(this::toAsyncToolSpecification).toList();
+    }
+
+    McpServerFeatures.AsyncToolSpecification toAsyncToolSpecification(McpServerFeatures.SyncToolSpecification tool) {
+        String toolName = tool.tool().name();
+        Duration timeout = duration(environment.getProperty("devtools.mcp.tool-timeouts." + toolName), defaultTimeout);
+
+        return new McpServerFeatures.AsyncToolSpecification(tool.tool(), (exchange, arguments) ->
+                Mono.<McpSchema.CallToolResult>create(sink -> {
+                    final Future<?> future;
+                    try {
+                        future = executorService.submit(() -> {
+                            try {
+                                sink.success(tool.call().apply(new McpSyncServerExchange(exchange), arguments));
+                            } catch (Throwable e) {
+                                sink.error(e);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        sink.error(e);
+                        return;
+                    }
+                    sink.onCancel(() -> future.cancel(true));
+                })
+                .timeout(timeout)
+                .onErrorResume(e -> Mono.just(errorResult(toolName, timeout, e))));
+    }
+
+    private static McpSchema.CallToolResult errorResult(String toolName, Duration timeout, Throwable e) {
+        String message;
+        if (e instanceof TimeoutException) {
+            message = "Tool " + toolName + " timed out after " + timeout.toMillis() + " ms";
+        } else if (e instanceof RejectedExecutionException) {
+            message = "Tool " + toolName + " was rejected because too many tool calls are running";
+        } else {
+            message = "Tool " + toolName + " failed: " + e.getMessage();
+        }
+        return new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(message)), true);
+    }
+
+    private static Duration duration(String value, Duration defaultValue) {
+        return value != null && !value.isBlank() ? DurationStyle.detectAndParse(value) : defaultValue;
+    }
+
+    /**
+     * The toolchain targets Java 17, so virtual threads are looked up at runtime.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "devtools-mcp-tool-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dedicated Netty server the MCP transport is served from. When deferred, the server is started on a background
+ * thread once the application is ready so that it adds nothing to the application startup. A failure to start, for
+ * example because the port is taken, is logged instead of failing the application.
+ */
+class McpWebServer implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(McpWebServer.class);
+
+    private final RouterFunction<?> routerFunction;
+    private final int port;
+    private final String ssePath;
+    private final boolean deferred;
+    private final long setupNanos;
+
+    private volatile WebServer webServer;
+    private volatile boolean stopped;
+
+    McpWebServer(RouterFunction<?> routerFunction, int port, String ssePath, boolean deferred, long setupNanos) {
+        this.routerFunction = routerFunction;
+        this.port = port;
+        this.ssePath = ssePath;
+        this.deferred = deferred;
+        this.setupNanos = setupNanos;
+        if (!deferred) {
+            start();
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (deferred && webServer == null) {
+            Thread thread = new Thread(this::start, "devtools-mcp-startup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private synchronized void start() {
+        if (webServer != null || stopped) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            var httpHandler = RouterFunctions.toHttpHandler(routerFunction);
+            WebServer server = new NettyReactiveWebServerFactory(port).getWebServer(httpHandler);
+            server.start();
+            webServer = server;
+            logger.info("Spring Devtools MCP Server listening on http://localhost:" + server.getPort() + ssePath
+                    + " (" + millis(setupNanos) + " ms to build the MCP server during application startup, "
+                    + millis(System.nanoTime() - startNanos) + " ms to start the web server"
+                    + (deferred ? " in the background)" : ")"));
+        } catch (Exception e) {
+            logger.warn("Spring Devtools MCP Server could not be started on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        stopped = true;
+        if (webServer != null) {
+            webServer.stop();
+            webServer = null;
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
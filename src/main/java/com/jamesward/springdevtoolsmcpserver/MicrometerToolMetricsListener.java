@@ -0,0 +1,74 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes tool invocations to Micrometer as the {@code devtools.mcp.tool.calls} timer, the
+ * {@code devtools.mcp.tool.response.size} summary and the {@code devtools.mcp.tool.errors} counter, tagged by tool
+ * and session. The registry is looked up lazily because it is usually configured after this auto-configuration, and
+ * the meters are cached so that recording does not go through the registry.
+ */
+class MicrometerToolMetricsListener implements ToolMetrics.Listener {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<String, Map<String, Meters>> meters = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    MicrometerToolMetricsListener(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void record(String tool, String session, long nanos, long responseBytes, boolean error) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return;
+            }
+            this.registry = registry;
+        }
+        MeterRegistry resolved = registry;
+        Meters toolMeters = meters.computeIfAbsent(tool, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(session, name -> new Meters(resolved, tool, session));
+        toolMeters.calls.record(nanos, TimeUnit.NANOSECONDS);
+        toolMeters.responseSize.record(responseBytes);
+        if (error) {
+            toolMeters.errors.increment();
+        }
+    }
+
+    private static final class Meters {
+        final Timer calls;
+        final DistributionSummary responseSize;
+        final Counter errors;
+
+        Meters(MeterRegistry registry, String tool, String session) {
+            this.calls = Timer.builder("devtools.mcp.tool.calls")
+                    .description("MCP tool invocations")
+                    .tag("tool", tool)
+                    .tag("session", session)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.responseSize = DistributionSummary.builder("devtools.mcp.tool.response.size")
+                    .description("Serialized size of MCP tool responses")
+                    .baseUnit("bytes")
+                    .tag("tool", tool)
+                    .tag("session", session)
+                    .register(registry);
+            this.errors = Counter.builder("devtools.mcp.tool.errors")
+                    .description("MCP tool invocations that failed")
+                    .tag("tool", tool)
+                    .tag("session", session)
+                    .register(registry);
+        }
+    }
+}
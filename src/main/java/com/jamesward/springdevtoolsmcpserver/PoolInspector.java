@@ -0,0 +1,393 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.ClassUtils;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Finds the thread pools, connection pools, Reactor schedulers and caches of the application and reads how busy they
+ * are: active, queued and maximum threads of {@link ThreadPoolTaskExecutor}, {@link ThreadPoolTaskScheduler} and
+ * {@link ThreadPoolExecutor} beans, active, idle and awaited connections of Hikari data sources, busy workers and
+ * queued tasks of Reactor schedulers, and hits, misses and evictions of Caffeine caches. Queued tasks are those due to
+ * run: the delayed and periodic tasks of scheduled executors wait for their time, not for a thread, and are only
+ * counted apart.
+ * <p>
+ * Only singletons that were already created are inspected, so lazy pools are not started just to be looked at.
+ * Reactor schedulers, the shared ones that are not beans included, are read from the executors Reactor creates for
+ * them, which an executor service decorator records, so no scheduler is created either, and those whose executors
+ * were created before the decorator was registered are listed without statistics. Schedulers grow their workers on
+ * demand and have no maximum, they are saturated only when tasks are queued. Hikari and Caffeine are optional, the
+ * beans of other data sources and caches are listed without statistics.
+ */
+class PoolInspector {
+
+    static final String EXECUTOR = "executor";
+    static final String DATA_SOURCE = "dataSource";
+    static final String SCHEDULER = "scheduler";
+
+    private static final boolean HIKARI_PRESENT = ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource", PoolInspector.class.getClassLoader());
+    private static final boolean CAFFEINE_PRESENT = ClassUtils.isPresent("com.github.benmanes.caffeine.cache.Cache", PoolInspector.class.getClassLoader());
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    PoolInspector(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+        SchedulerExecutors.register();
+    }
+
+    /**
+     * The executors, data sources and schedulers, the pools that can saturate.
+     */
+    List<Pool> pools() {
+        List<Pool> pools = new ArrayList<>();
+        for (String name : beanFactory.getBeanNamesForType(ThreadPoolTaskExecutor.class, true, false)) {
+            if (created(name) instanceof ThreadPoolTaskExecutor executor) {
+                try {
+                    pools.add(executor(name, executor.getThreadPoolExecutor()));
+                } catch (IllegalStateException e) {
+                    // not initialized yet
+                }
+            }
+        }
+        for (String name : beanFactory.getBeanNamesForType(ThreadPoolTaskScheduler.class, true, false)) {
+            if (created(name) instanceof ThreadPoolTaskScheduler scheduler) {
+                try {
+                    pools.add(executor(name, scheduler.getScheduledThreadPoolExecutor()));
+                } catch (IllegalStateException e) {
+                    // not initialized yet
+                }
+            }
+        }
+        for (String name : beanFactory.getBeanNamesForType(ThreadPoolExecutor.class, true, false)) {
+            if (created(name) instanceof ThreadPoolExecutor executor) {
+                pools.add(executor(name, executor));
+            }
+        }
+        for (String name : beanFactory.getBeanNamesForType(DataSource.class, true, false)) {
+            if (created(name) instanceof DataSource dataSource) {
+                pools.add(dataSource(name, dataSource));
+            }
+        }
+        Map<Scheduler, List<ScheduledExecutorService>> executors = SchedulerExecutors.snapshot();
+        for (String name : beanFactory.getBeanNamesForType(Scheduler.class, true, false)) {
+            if (created(name) instanceof Scheduler scheduler) {
+                pools.add(scheduler(name, scheduler, executors.remove(unwrap(scheduler))));
+            }
+        }
+        // the schedulers that are not beans, such as the shared ones the MCP transport and most reactive code run on
+        executors.forEach((scheduler, schedulerExecutors) -> {
+            Object description = Scannable.from(scheduler).scan(Scannable.Attr.NAME);
+            pools.add(scheduler(description != null ? description.toString() : scheduler.toString(), scheduler, schedulerExecutors));
+        });
+        return pools;
+    }
+
+    /**
+     * The caches of each {@link CacheManager}, with their statistics when the cache records them.
+     */
+    List<Map<String, Object>> caches() {
+        List<Map<String, Object>> caches = new ArrayList<>();
+        for (String managerName : beanFactory.getBeanNamesForType(CacheManager.class, true, false)) {
+            if (!(created(managerName) instanceof CacheManager manager)) {
+                continue;
+            }
+            for (String cacheName : manager.getCacheNames()) {
+                Cache cache = manager.getCache(cacheName);
+                if (cache == null) {
+                    continue;
+                }
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("cacheManager", managerName);
+                stats.put("cache", cacheName);
+                Object nativeCache = cache.getNativeCache();
+                stats.put("type", nativeCache.getClass().getName());
+                boolean caffeine = CAFFEINE_PRESENT && CaffeineCaches.stats(nativeCache, stats);
+                if (!caffeine && nativeCache instanceof Map<?, ?> map) {
+                    stats.put("size", map.size());
+                }
+                caches.add(stats);
+            }
+        }
+        return caches;
+    }
+
+    private Object created(String beanName) {
+        return beanFactory.containsSingleton(beanName) ? beanFactory.getSingleton(beanName) : null;
+    }
+
+    private static Pool executor(String name, ThreadPoolExecutor executor) {
+        QueuedTasks queued = new QueuedTasks();
+        queued.add(executor);
+        Pool pool = new Pool(EXECUTOR, name, executor.getActiveCount(), executor.getMaximumPoolSize(), queued.due);
+        pool.stats.put("type", executor.getClass().getName());
+        pool.stats.put("active", executor.getActiveCount());
+        pool.stats.put("poolSize", executor.getPoolSize());
+        pool.stats.put("corePoolSize", executor.getCorePoolSize());
+        pool.stats.put("maxPoolSize", executor.getMaximumPoolSize());
+        pool.stats.put("largestPoolSize", executor.getLargestPoolSize());
+        pool.stats.put("queued", queued.due);
+        if (executor instanceof ScheduledThreadPoolExecutor) {
+            pool.stats.put("delayedTasks", queued.delayed);
+            pool.stats.put("periodicTasks", queued.periodic);
+        }
+        pool.stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        pool.stats.put("completedTasks", executor.getCompletedTaskCount());
+        if (executor.isShutdown()) {
+            pool.stats.put("shutdown", true);
+        }
+        return pool;
+    }
+
+    private static Pool dataSource(String name, DataSource dataSource) {
+        if (HIKARI_PRESENT) {
+            Pool pool = HikariPools.pool(name, dataSource);
+            if (pool != null) {
+                return pool;
+            }
+        }
+        Pool pool = new Pool(DATA_SOURCE, name, -1, -1, -1);
+        pool.stats.put("type", dataSource.getClass().getName());
+        pool.stats.put("note", "statistics are only read from Hikari data sources");
+        return pool;
+    }
+
+    /**
+     * @param executors the executors recorded for the scheduler, {@code null} when none were
+     */
+    private static Pool scheduler(String name, Scheduler scheduler, List<ScheduledExecutorService> executors) {
+        Scannable scannable = Scannable.from(scheduler);
+        int workers = 0;
+        int busy = 0;
+        QueuedTasks queued = new QueuedTasks();
+        if (executors != null) {
+            for (ScheduledExecutorService executor : executors) {
+                if (executor instanceof ThreadPoolExecutor threadPool) {
+                    workers++;
+                    busy += threadPool.getActiveCount();
+                    queued.add(threadPool);
+                }
+            }
+        }
+        Pool pool = workers > 0 ? new Pool(SCHEDULER, name, busy, -1, queued.due) : new Pool(SCHEDULER, name, -1, -1, -1);
+        pool.stats.put("type", scheduler.getClass().getName());
+        pool.stats.put("description", scannable.scan(Scannable.Attr.NAME));
+        if (workers > 0) {
+            pool.stats.put("workers", workers);
+            pool.stats.put("busyWorkers", busy);
+            pool.stats.put("queuedTasks", queued.due);
+            pool.stats.put("delayedTasks", queued.delayed);
+            pool.stats.put("periodicTasks", queued.periodic);
+        } else {
+            pool.stats.put("note", "statistics are only read from the executors Reactor creates after the MCP server started");
+        }
+        if (Boolean.TRUE.equals(scannable.scan(Scannable.Attr.TERMINATED))) {
+            pool.stats.put("disposed", true);
+        }
+        return pool;
+    }
+
+    /**
+     * The scheduler a shared scheduler such as {@code Schedulers.parallel()} caches, which is the one its executors
+     * are created for.
+     */
+    private static Scheduler unwrap(Scheduler scheduler) {
+        return scheduler instanceof Supplier<?> supplier && supplier.get() instanceof Scheduler cached ? cached : scheduler;
+    }
+
+    /**
+     * The tasks queued in an executor, split into those due to run, those delayed and the periodic ones, which stay
+     * queued between their runs.
+     */
+    private static final class QueuedTasks {
+        int due;
+        int delayed;
+        int periodic;
+
+        void add(ThreadPoolExecutor executor) {
+            for (Runnable task : executor.getQueue()) {
+                if (!(task instanceof RunnableScheduledFuture<?> scheduled)) {
+                    due++;
+                } else if (scheduled.isPeriodic()) {
+                    periodic++;
+                } else if (scheduled.getDelay(TimeUnit.NANOSECONDS) > 0) {
+                    delayed++;
+                } else {
+                    due++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the executors Reactor creates for its schedulers, through the executor service decorator that is the
+     * public way to reach them. The executors are returned undecorated, and are held weakly so that the workers a
+     * bounded elastic scheduler evicts, and the schedulers that are disposed, are not retained. The executors are
+     * static, {@linkplain com.jamesward.springdevtoolsmcpserver kept across restarts}, as the shared schedulers are.
+     */
+    private static final class SchedulerExecutors {
+
+        private static final String DECORATOR_KEY = "devtools-mcp";
+
+        // guarded by itself
+        private static final Map<Scheduler, Set<ScheduledExecutorService>> EXECUTORS = new WeakHashMap<>();
+
+        static void register() {
+            Schedulers.setExecutorServiceDecorator(DECORATOR_KEY, SchedulerExecutors::record);
+        }
+
+        private static ScheduledExecutorService record(Scheduler scheduler, ScheduledExecutorService executor) {
+            synchronized (EXECUTORS) {
+                EXECUTORS.computeIfAbsent(scheduler, key -> Collections.newSetFromMap(new WeakHashMap<>())).add(executor);
+            }
+            return executor;
+        }
+
+        /**
+         * The executors that are not shut down, per scheduler.
+         */
+        static Map<Scheduler, List<ScheduledExecutorService>> snapshot() {
+            Map<Scheduler, List<ScheduledExecutorService>> snapshot = new LinkedHashMap<>();
+            synchronized (EXECUTORS) {
+                EXECUTORS.forEach((scheduler, executors) -> {
+                    executors.removeIf(ExecutorService::isShutdown);
+                    if (!executors.isEmpty()) {
+                        snapshot.put(scheduler, new ArrayList<>(executors));
+                    }
+                });
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Kept apart so that Caffeine classes are only loaded when Caffeine is on the class path.
+     */
+    private static final class CaffeineCaches {
+
+        static boolean stats(Object nativeCache, Map<String, Object> stats) {
+            if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> cache)) {
+                return false;
+            }
+            stats.put("size", cache.estimatedSize());
+            if (!cache.policy().isRecordingStats()) {
+                stats.put("note", "statistics are not recorded, build the cache with recordStats()");
+                return true;
+            }
+            CacheStats cacheStats = cache.stats();
+            stats.put("hits", cacheStats.hitCount());
+            stats.put("misses", cacheStats.missCount());
+            stats.put("hitRate", Math.round(cacheStats.hitRate() * 1000) / 1000.0);
+            stats.put("evictions", cacheStats.evictionCount());
+            stats.put("loadFailures", cacheStats.loadFailureCount());
+            stats.put("averageLoadMs", Math.round(cacheStats.averageLoadPenalty() / 10_000.0) / 100.0);
+            return true;
+        }
+    }
+
+    /**
+     * Kept apart so that Hikari classes are only loaded when Hikari is on the class path.
+     */
+    private static final class HikariPools {
+
+        static Pool pool(String name, DataSource dataSource) {
+            HikariDataSource hikari;
+            try {
+                if (dataSource instanceof HikariDataSource direct) {
+                    hikari = direct;
+                } else if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    hikari = dataSource.unwrap(HikariDataSource.class);
+                } else {
+                    return null;
+                }
+            } catch (Exception e) {
+                return null;
+            }
+
+            HikariPoolMXBean mxBean = hikari.getHikariPoolMXBean();
+            int max = hikari.getMaximumPoolSize();
+            if (mxBean == null) {
+                Pool pool = new Pool(DATA_SOURCE, name, 0, max, 0);
+                pool.stats.put("type", HikariDataSource.class.getName());
+                pool.stats.put("started", false);
+                pool.stats.put("maxPoolSize", max);
+                return pool;
+            }
+            Pool pool = new Pool(DATA_SOURCE, name, mxBean.getActiveConnections(), max, mxBean.getThreadsAwaitingConnection());
+            pool.stats.put("type", HikariDataSource.class.getName());
+            pool.stats.put("pool", hikari.getPoolName());
+            pool.stats.put("active", mxBean.getActiveConnections());
+            pool.stats.put("idle", mxBean.getIdleConnections());
+            pool.stats.put("total", mxBean.getTotalConnections());
+            pool.stats.put("maxPoolSize", max);
+            pool.stats.put("minIdle", hikari.getMinimumIdle());
+            pool.stats.put("threadsAwaitingConnection", mxBean.getThreadsAwaitingConnection());
+            pool.stats.put("connectionTimeoutMs", hikari.getConnectionTimeout());
+            return pool;
+        }
+    }
+
+    /**
+     * A pool with its statistics, and the active, maximum and waiting counts the saturation is computed from, -1
+     * when unknown. Waiting is the queued tasks due to run of executors and schedulers, and the threads waiting for a
+     * connection of data sources.
+     */
+    static final class Pool {
+        final String kind;
+        final String name;
+        final int active;
+        final int max;
+        final int waiting;
+        final Map<String, Object> stats = new LinkedHashMap<>();
+
+        Pool(String kind, String name, int active, int max, int waiting) {
+            this.kind = kind;
+            this.name = name;
+            this.active = active;
+            this.max = max;
+            this.waiting = waiting;
+        }
+
+        String key() {
+            return kind + ":" + name;
+        }
+
+        boolean saturated() {
+            return (max > 0 && active >= max) || waiting > 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.putAll(stats);
+            if (saturated()) {
+                map.put("saturated", true);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the active and waiting counts of the pools found by {@link PoolInspector} in the background, so that a
+ * saturation that came and went between two tool calls still shows. Each pool has a primitive ring buffer of
+ * {@code capacity} samples, and the pools that stop being sampled, after a restart for instance, are dropped once
+ * their samples are all older than the history.
+ * <p>
+ * Enabled with {@code devtools.mcp.pools.sampler.enabled}, configured with {@code devtools.mcp.pools.sampler.interval}
+ * and {@code devtools.mcp.pools.sampler.capacity}.
+ */
+class PoolSampler implements DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(PoolSampler.class);
+
+    /**
+     * Spikes reported per pool, the latest ones.
+     */
+    private static final int MAX_SPIKES = 10;
+
+    private final PoolInspector poolInspector;
+    private final Duration interval;
+    private final int capacity;
+
+    // guarded by this
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private long count;
+
+    private final ScheduledExecutorService scheduler;
+
+    PoolSampler(PoolInspector poolInspector, Duration interval, int capacity) {
+        if (interval.toMillis() < 1) {
+            throw new IllegalArgumentException("devtools.mcp.pools.sampler.interval must be at least 1ms, got " + interval);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("devtools.mcp.pools.sampler.capacity must be at least 1, got " + capacity);
+        }
+        this.poolInspector = poolInspector;
+        this.interval = interval;
+        this.capacity = capacity;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "devtools-mcp-pools");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::sampleSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Throwable e) {
+            // an exception would cancel the schedule
+            logger.debug("Failed to sample pools", e);
+        }
+    }
+
+    void sample() {
+        List<PoolInspector.Pool> pools = poolInspector.pools();
+        long timestamp = System.currentTimeMillis();
+        synchronized (this) {
+            for (PoolInspector.Pool pool : pools) {
+                if (pool.active >= 0 || pool.waiting >= 0) {
+                    series.computeIfAbsent(pool.key(), key -> new Series(pool.kind, pool.name, capacity)).add(timestamp, pool);
+                }
+            }
+            long expired = timestamp - interval.toMillis() * capacity;
+            series.values().removeIf(s -> s.latest() < expired);
+            count++;
+        }
+    }
+
+    /**
+     * Per pool, the peaks and the number of saturated samples over the history, and the latest spikes: runs of
+     * consecutive samples where every thread or connection was in use or tasks or threads were waiting.
+     */
+    synchronized Map<String, Object> toMap(String kind) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("intervalMs", interval.toMillis());
+        result.put("capacity", capacity);
+        result.put("totalSamples", count);
+        List<Map<String, Object>> pools = new ArrayList<>();
+        for (Series s : series.values()) {
+            if (kind == null || kind.equals(s.kind)) {
+                pools.add(s.toMap());
+            }
+        }
+        result.put("pools", pools);
+        return result;
+    }
+
+    private static final class Series {
+        final String kind;
+        final String name;
+        final long[] timestamps;
+        final int[] active;
+        final int[] max;
+        final int[] waiting;
+        int next;
+        int size;
+
+        Series(String kind, String name, int capacity) {
+            this.kind = kind;
+            this.name = name;
+            this.timestamps = new long[capacity];
+            this.active = new int[capacity];
+            this.max = new int[capacity];
+            this.waiting = new int[capacity];
+        }
+
+        void add(long timestamp, PoolInspector.Pool pool) {
+            timestamps[next] = timestamp;
+            active[next] = pool.active;
+            max[next] = pool.max;
+            waiting[next] = pool.waiting;
+            next = (next + 1) % timestamps.length;
+            size = Math.min(size + 1, timestamps.length);
+        }
+
+        long latest() {
+            return timestamps[(next - 1 + timestamps.length) % timestamps.length];
+        }
+
+        boolean saturated(int i) {
+            return (max[i] > 0 && active[i] >= max[i]) || waiting[i] > 0;
+        }
+
+        Map<String, Object> toMap() {
+            int first = (next - size + timestamps.length) % timestamps.length;
+            int peakActive = 0;
+            int peakWaiting = 0;
+            int saturatedSamples = 0;
+            List<Map<String, Object>> spikes = new ArrayList<>();
+            Map<String, Object> spike = null;
+            for (int offset = 0; offset < size; offset++) {
+                int i = (first + offset) % timestamps.length;
+                peakActive = Math.max(peakActive, active[i]);
+                peakWaiting = Math.max(peakWaiting, waiting[i]);
+                if (!saturated(i)) {
+                    spike = null;
+                    continue;
+                }
+                saturatedSamples++;
+                if (spike == null) {
+                    spike = new LinkedHashMap<>();
+                    spike.put("from", timestamps[i]);
+                    spike.put("samples", 0);
+                    spike.put("peakActive", 0);
+                    spike.put("peakWaiting", 0);
+                    spikes.add(spike);
+                }
+                spike.put("to", timestamps[i]);
+                spike.put("samples", (int) spike.get("samples") + 1);
+                spike.put("peakActive", Math.max((int) spike.get("peakActive"), active[i]));
+                spike.put("peakWaiting", Math.max((int) spike.get("peakWaiting"), waiting[i]));
+            }
+
+            int last = (next - 1 + timestamps.length) % timestamps.length;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("kind", kind);
+            result.put("name", name);
+            result.put("samples", size);
+            result.put("active", active[last]);
+            result.put("max", max[last]);
+            result.put("waiting", waiting[last]);
+            result.put("peakActive", peakActive);
+            result.put("peakWaiting", peakWaiting);
+            result.put("saturatedSamples", saturatedSamples);
+            if (spikes.size() > MAX_SPIKES) {
+                spikes.subList(0, spikes.size() - MAX_SPIKES).clear();
+                result.put("spikesDropped", true);
+            }
+            result.put("spikes", spikes);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sorted index of the property keys exposed by the enumerable property sources of an environment, recording for each
+ * key the highest precedence source that defines it. Values are not stored, they are resolved through the environment
+ * only for the keys a query returns.
+ * <p>
+ * Every query first compares the property sources with the indexed ones, by identity and, for the sources backed by
+ * a map, by size, which costs a few operations per source. Sources that were added, removed, replaced or resized are
+ * re-read and only their keys are re-ranked. A same-size edit of a map, or an edit of a source that is not backed by
+ * one, such as a {@code CompositePropertySource}, shows once the context is refreshed or devtools restarts, which
+ * drops the whole index.
+ * <p>
+ * Queries read the matching keys in chunks as they are consumed, so a query whose response is cut by its budget only
+ * reads about what it returned.
+ */
+class PropertyIndex implements ApplicationListener<ApplicationEvent> {
+
+    private static final int CHUNK_SIZE = 256;
+
+    private final Environment environment;
+
+    private final List<IndexedSource> sources = new ArrayList<>();
+    private final TreeMap<String, IndexedSource> owners = new TreeMap<>();
+
+    PropertyIndex(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (BeanCatalog.isRefreshEvent(event)) {
+            invalidate();
+        }
+    }
+
+    synchronized void invalidate() {
+        sources.clear();
+        owners.clear();
+    }
+
+    /**
+     * Returns the keys starting with {@code prefix} and sorting after {@code after}, if given, in order and mapped to
+     * the name of the property source that supplies them.
+     */
+    Stream<Map.Entry<String, String>> keysWithPrefix(String prefix, String after) {
+        String from = prefix != null ? prefix : "";
+        boolean afterCursor = after != null && after.compareTo(from) >= 0;
+        return stream(new Keys(afterCursor ? after : from, !afterCursor, key -> key.startsWith(from), true));
+    }
+
+    /**
+     * Returns the keys containing {@code query}, ignoring case, and sorting after {@code after}, if given, in order
+     * and mapped to the name of the property source that supplies them.
+     */
+    Stream<Map.Entry<String, String>> keysContaining(String query, String after) {
+        String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+        return stream(new Keys(after != null ? after : "", after == null,
+                key -> key.toLowerCase(Locale.ROOT).contains(lowerCaseQuery), false));
+    }
+
+    private static Stream<Map.Entry<String, String>> stream(Keys keys) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(keys, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Up to {@link #CHUNK_SIZE} keys from {@code from} that match, stopping at the first key that does not when
+     * {@code contiguous}, as the keys with a prefix are.
+     */
+    private synchronized List<Map.Entry<String, String>> chunk(String from, boolean inclusive, Predicate<String> matches,
+                                                             boolean contiguous) {
+        update();
+        List<Map.Entry<String, String>> chunk = new ArrayList<>();
+        for (Map.Entry<String, IndexedSource> entry : owners.tailMap(from, inclusive).entrySet()) {
+            if (matches.test(entry.getKey())) {
+                chunk.add(Map.entry(entry.getKey(), entry.getValue().name));
+                if (chunk.size() == CHUNK_SIZE) {
+                    break;
+                }
+            } else if (contiguous) {
+                break;
+            }
+        }
+        return chunk;
+    }
+
+    private void update() {
+        if (!(environment instanceof ConfigurableEnvironment configurableEnvironment)) {
+            return;
+        }
+
+        List<EnumerablePropertySource<?>> current = new ArrayList<>();
+        for (PropertySource<?> propertySource : configurableEnvironment.getPropertySources()) {
+            if (propertySource instanceof EnumerablePropertySource<?> enumerable) {
+                current.add(enumerable);
+            }
+        }
+
+        Map<PropertySource<?>, IndexedSource> previous = new IdentityHashMap<>();
+        for (IndexedSource indexed : sources) {
+            previous.put(indexed.source, indexed);
+        }
+
+        Set<String> affectedKeys = new HashSet<>();
+        List<IndexedSource> updated = new ArrayList<>(current.size());
+        List<IndexedSource> retained = new ArrayList<>();
+        for (EnumerablePropertySource<?> source : current) {
+            IndexedSource indexed = previous.remove(source);
+            if (indexed != null && indexed.size == size(source)) {
+                retained.add(indexed);
+            } else {
+                if (indexed != null) {
+                    affectedKeys.addAll(indexed.keys);
+                }
+                indexed = new IndexedSource(source);
+                affectedKeys.addAll(indexed.keys);
+            }
+            updated.add(indexed);
+        }
+        for (IndexedSource removed : previous.values()) {
+            affectedKeys.addAll(removed.keys);
+        }
+
+        boolean reordered = !sources.stream().filter(retained::contains).toList().equals(retained);
+        if (affectedKeys.isEmpty() && !reordered) {
+            return;
+        }
+
+        sources.clear();
+        sources.addAll(updated);
+
+        if (reordered || retained.isEmpty()) {
+            // Re-ranking everything is cheaper than a lookup per key when little or nothing was retained
+            owners.clear();
+            for (int i = sources.size() - 1; i >= 0; i--) {
+                IndexedSource source = sources.get(i);
+                for (String key : source.keys) {
+                    owners.put(key, source);
+                }
+            }
+            return;
+        }
+
+        for (String key : affectedKeys) {
+            IndexedSource owner = null;
+            for (IndexedSource source : sources) {
+                if (source.keys.contains(key)) {
+                    owner = source;
+                    break;
+                }
+            }
+            if (owner != null) {
+                owners.put(key, owner);
+            } else {
+                owners.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The size of the map backing the source, -1 when it is not backed by one.
+     */
+    private static int size(EnumerablePropertySource<?> source) {
+        return source.getSource() instanceof Map<?, ?> map ? map.size() : -1;
+    }
+
+    private static final class IndexedSource {
+        final EnumerablePropertySource<?> source;
+        final String name;
+        final Set<String> keys;
+        final int size;
+
+        IndexedSource(EnumerablePropertySource<?> source) {
+            this.source = source;
+            this.name = source.getName();
+            this.keys = new HashSet<>(Arrays.asList(source.getPropertyNames()));
+            this.size = size(source);
+        }
+    }
+
+    /**
+     * Reads the matching keys a chunk at a time, each chunk starting after the last key of the previous one, so the
+     * index may be updated between two chunks.
+     */
+    private final class Keys implements Iterator<Map.Entry<String, String>> {
+        private final Predicate<String> matches;
+        private final boolean contiguous;
+        private String from;
+        private boolean inclusive;
+        private List<Map.Entry<String, String>> chunk = List.of();
+        private int next;
+        private boolean last;
+
+        Keys(String from, boolean inclusive, Predicate<String> matches, boolean contiguous) {
+            this.from = from;
+            this.inclusive = inclusive;
+            this.matches = matches;
+            this.contiguous = contiguous;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < chunk.size()) {
+                return true;
+            }
+            if (last) {
+                return false;
+            }
+            chunk = chunk(from, inclusive, matches, contiguous);
+            next = 0;
+            last = chunk.size() < CHUNK_SIZE;
+            if (chunk.isEmpty()) {
+                return false;
+            }
+            from = chunk.get(chunk.size() - 1).getKey();
+            inclusive = false;
+            return true;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(next++);
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index of the HTTP routes of the application: annotated handler methods of Spring MVC and WebFlux, and the routes
+ * of their functional {@code RouterFunction}s, flattened with {@code RouterFunctions.Visitor}. The index is built
+ * lazily and dropped when the context is refreshed or devtools signals a restart.
+ * <p>
+ * Routes are also kept in a trie of path segments, so that {@link #match(String, String)} only verifies the routes
+ * whose literal segments match the request path.
+ */
+class RouteIndex implements ApplicationListener<ApplicationEvent> {
+
+    static final String WEBMVC = "webmvc";
+    static final String WEBFLUX = "webflux";
+
+    private static final String WEBMVC_HANDLER_MAPPING = "org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping";
+    private static final String WEBFLUX_HANDLER_MAPPING = "org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping";
+
+    private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Snapshot snapshot;
+
+    RouteIndex(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (BeanCatalog.isRefreshEvent(event)) {
+            invalidate();
+        }
+    }
+
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = build();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * All routes of the given framework, or of both when {@code framework} is {@code null}, sorted by
+     * {@link Route#sortKey}, which starts with the pattern.
+     */
+    List<Route> routes(String framework) {
+        List<Route> routes = snapshot().routes;
+        if (framework == null) {
+            return routes;
+        }
+        return routes.stream().filter(route -> route.framework.equals(framework)).toList();
+    }
+
+    /**
+     * Errors that prevented some routes from being indexed.
+     */
+    List<String> errors() {
+        return snapshot().errors;
+    }
+
+    /**
+     * Returns the routes matching {@code path}, most specific first, split by whether they also accept
+     * {@code method}. A path relative to the context path is expected.
+     */
+    Match match(String method, String path) {
+        String requestMethod = method != null ? method.trim().toUpperCase(Locale.ROOT) : null;
+        String requestPath = path.startsWith("/") ? path : "/" + path;
+
+        List<Route> candidates = new ArrayList<>();
+        snapshot().trie.collect(segments(requestPath), 0, candidates);
+
+        PathContainer pathContainer = PathContainer.parsePath(requestPath);
+        List<Matched> matched = new ArrayList<>();
+        List<Matched> otherMethods = new ArrayList<>();
+        for (Route route : candidates) {
+            Map<String, String> uriVariables = route.match(requestPath, pathContainer);
+            if (uriVariables == null) {
+                continue;
+            }
+            if (requestMethod == null || route.accepts(requestMethod)) {
+                matched.add(new Matched(route, uriVariables));
+            } else {
+                otherMethods.add(new Matched(route, uriVariables));
+            }
+        }
+        matched.sort(Matched.MOST_SPECIFIC_FIRST);
+        otherMethods.sort(Matched.MOST_SPECIFIC_FIRST);
+        return new Match(matched, otherMethods);
+    }
+
+    private Snapshot build() {
+        List<Route> routes = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        ClassLoader classLoader = applicationContext.getClassLoader();
+
+        // each collector is only loaded when its framework is on the classpath
+        if (ClassUtils.isPresent(WEBMVC_HANDLER_MAPPING, classLoader)) {
+            try {
+                WebMvcRoutes.collect(applicationContext, routes);
+            } catch (Exception | LinkageError e) {
+                errors.add("Failed to index Spring MVC routes: " + e.getMessage());
+            }
+        }
+        if (ClassUtils.isPresent(WEBFLUX_HANDLER_MAPPING, classLoader)) {
+            try {
+                WebFluxRoutes.collect(applicationContext, routes);
+            } catch (Exception | LinkageError e) {
+                errors.add("Failed to index WebFlux routes: " + e.getMessage());
+            }
+        }
+
+        routes.sort(Comparator.comparing(route -> route.sortKey));
+
+        Node trie = new Node();
+        for (Route route : routes) {
+            trie.insert(route);
+        }
+        return new Snapshot(Collections.unmodifiableList(routes), Collections.unmodifiableList(errors), trie);
+    }
+
+    static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                if (i > start) {
+                    segments.add(path.substring(start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+
+    static Route route(String framework, String kind, String pattern, Collection<?> methods, Collection<?> consumes,
+                       Collection<?> produces, Collection<?> conditions, String handler, String source) {
+        return new Route(framework, kind, pattern, strings(methods), strings(consumes), strings(produces),
+                strings(conditions), handler, source);
+    }
+
+    private static Set<String> strings(Collection<?> values) {
+        Set<String> strings = new TreeSet<>();
+        for (Object value : values) {
+            strings.add(value.toString());
+        }
+        return Collections.unmodifiableSet(strings);
+    }
+
+    static String handler(HandlerMethod handlerMethod) {
+        return handlerMethod.getBeanType().getName() + "#" + handlerMethod.getMethod().getName();
+    }
+
+    private static final class Snapshot {
+        final List<Route> routes;
+        final List<String> errors;
+        final Node trie;
+
+        Snapshot(List<Route> routes, List<String> errors, Node trie) {
+            this.routes = routes;
+            this.errors = errors;
+            this.trie = trie;
+        }
+    }
+
+    static final class Route {
+        final String framework;
+        final String kind;
+        /**
+         * {@code null} for a functional route without a path predicate, which matches any path.
+         */
+        final String pattern;
+        final Set<String> methods;
+        final Set<String> consumes;
+        final Set<String> produces;
+        final Set<String> conditions;
+        final String handler;
+        final String source;
+        /**
+         * What identifies the route: its pattern, methods, consumes, produces, conditions, handler and framework. Two
+         * routes may share a pattern and methods, such as the {@code errorHtml} and {@code error} mappings of
+         * Boot's error controller.
+         */
+        final String id;
+        /**
+         * The identity followed by the kind and source, unique so that routes are totally ordered by it and a route
+         * cursor designates a single route.
+         */
+        final String sortKey;
+        private final PathPattern pathPattern;
+
+        Route(String framework, String kind, String pattern, Set<String> methods, Set<String> consumes,
+              Set<String> produces, Set<String> conditions, String handler, String source) {
+            this.framework = framework;
+            this.kind = kind;
+            this.pattern = pattern;
+            this.methods = methods;
+            this.consumes = consumes;
+            this.produces = produces;
+            this.conditions = conditions;
+            this.handler = handler;
+            this.source = source;
+            this.id = (pattern != null ? pattern : "(any)") + " " + join(methods) + " " + join(consumes) + " "
+                    + join(produces) + " " + join(conditions) + " " + handler + " " + framework;
+            this.sortKey = id + " " + kind + " " + source;
+            this.pathPattern = parse(pattern);
+        }
+
+        private static String join(Set<String> values) {
+            return values.isEmpty() ? "*" : String.join(",", values);
+        }
+
+        private static PathPattern parse(String pattern) {
+            if (pattern == null) {
+                return null;
+            }
+            try {
+                return PathPatternParser.defaultInstance.parse(pattern);
+            } catch (RuntimeException e) {
+                // an AntPathMatcher pattern that PathPatternParser rejects, such as '/**/foo'
+                return null;
+            }
+        }
+
+        boolean accepts(String method) {
+            return methods.isEmpty() || methods.contains(method) || ("HEAD".equals(method) && methods.contains("GET"));
+        }
+
+        /**
+         * The URI variables if the route matches the path, otherwise {@code null}.
+         */
+        Map<String, String> match(String path, PathContainer pathContainer) {
+            if (pattern == null) {
+                return Collections.emptyMap();
+            }
+            if (pathPattern != null) {
+                PathPattern.PathMatchInfo info = pathPattern.matchAndExtract(pathContainer);
+                return info != null ? info.getUriVariables() : null;
+            }
+            return ANT_PATH_MATCHER.match(pattern, path) ? ANT_PATH_MATCHER.extractUriTemplateVariables(pattern, path) : null;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("pattern", pattern != null ? pattern : "(any)");
+            map.put("methods", methods.isEmpty() ? List.of("(any)") : methods);
+            if (!consumes.isEmpty()) {
+                map.put("consumes", consumes);
+            }
+            if (!produces.isEmpty()) {
+                map.put("produces", produces);
+            }
+            if (!conditions.isEmpty()) {
+                map.put("conditions", conditions);
+            }
+            map.put("handler", handler);
+            map.put("kind", kind);
+            map.put("framework", framework);
+            map.put("source", source);
+            return map;
+        }
+    }
+
+    static final class Matched {
+        static final Comparator<Matched> MOST_SPECIFIC_FIRST = (left, right) -> {
+            PathPattern leftPattern = left.route.pathPattern;
+            PathPattern rightPattern = right.route.pathPattern;
+            if (leftPattern == null || rightPattern == null) {
+                // functional routes without a path and unparsable patterns go last
+                return Boolean.compare(leftPattern == null, rightPattern == null);
+            }
+            int bySpecificity = PathPattern.SPECIFICITY_COMPARATOR.compare(leftPattern, rightPattern);
+            if (bySpecificity != 0) {
+                return bySpecificity;
+            }
+            // a route that names the method wins over one that accepts any method
+            return Boolean.compare(left.route.methods.isEmpty(), right.route.methods.isEmpty());
+        };
+
+        final Route route;
+        final Map<String, String> uriVariables;
+
+        Matched(Route route, Map<String, String> uriVariables) {
+            this.route = route;
+            this.uriVariables = uriVariables;
+        }
+    }
+
+    static final class Match {
+        final List<Matched> matched;
+        /**
+         * Routes matching the path but not the method.
+         */
+        final List<Matched> otherMethods;
+
+        Match(List<Matched> matched, List<Matched> otherMethods) {
+            this.matched = matched;
+            this.otherMethods = otherMethods;
+        }
+    }
+
+    /**
+     * A trie of path segments. Literal segments are looked up by value, segments with variables or wildcards share
+     * one child per node, and routes ending in a multi-segment wildcard are kept on the node where it starts.
+     */
+    private static final class Node {
+        final Map<String, Node> literals = new HashMap<>();
+        Node variable;
+        final List<Route> routes = new ArrayList<>();
+        final List<Route> catchAll = new ArrayList<>();
+
+        void insert(Route route) {
+            if (route.pattern == null) {
+                catchAll.add(route);
+                return;
+            }
+            Node node = this;
+            for (String segment : segments(route.pattern)) {
+                if (segment.equals("**") || segment.startsWith("{*")) {
+                    node.catchAll.add(route);
+                    return;
+                }
+                if (isLiteral(segment)) {
+                    node = node.literals.computeIfAbsent(segment, key -> new Node());
+                } else {
+                    if (node.variable == null) {
+                        node.variable = new Node();
+                    }
+                    node = node.variable;
+                }
+            }
+            node.routes.add(route);
+        }
+
+        void collect(List<String> segments, int index, List<Route> candidates) {
+            candidates.addAll(catchAll);
+            if (index == segments.size()) {
+                candidates.addAll(routes);
+                return;
+            }
+            Node literal = literals.get(segments.get(index));
+            if (literal != null) {
+                literal.collect(segments, index + 1, candidates);
+            }
+            if (variable != null) {
+                variable.collect(segments, index + 1, candidates);
+            }
+        }
+
+        private static boolean isLiteral(String segment) {
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '{' || c == '*' || c == '?') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Flattens a router function into routes. The WebFlux and Spring MVC visitors have the same shape but unrelated
+     * types, so both adapt to this. Nested predicates contribute their path as a prefix and their methods and
+     * conditions to the routes below them.
+     */
+    static final class FunctionalRoutes {
+        private final String framework;
+        private final String source;
+        private final List<Route> routes;
+        private final Deque<Predicate> nested = new ArrayDeque<>();
+        private Predicate current;
+        private int negated;
+
+        FunctionalRoutes(String framework, String source, List<Route> routes) {
+            this.framework = framework;
+            this.source = source;
+            this.routes = routes;
+        }
+
+        void startPredicate() {
+            current = new Predicate();
+            negated = 0;
+        }
+
+        void method(Collection<String> methods) {
+            if (negated > 0) {
+                current.conditions.add("!method " + methods);
+            } else {
+                current.methods.addAll(methods);
+            }
+        }
+
+        void path(String pattern) {
+            if (negated > 0) {
+                current.conditions.add("!path " + pattern);
+            } else {
+                current.paths.add(pattern);
+            }
+        }
+
+        void condition(String condition) {
+            current.conditions.add(negated > 0 ? "!" + condition : condition);
+        }
+
+        void startNegate() {
+            negated++;
+        }
+
+        void endNegate() {
+            negated--;
+        }
+
+        void startNested() {
+            nested.push(current);
+        }
+
+        void endNested() {
+            nested.pop();
+        }
+
+        void route(String handler) {
+            add("functional", current, handler);
+        }
+
+        void other(String kind, String handler) {
+            add(kind, new Predicate(), handler);
+        }
+
+        private void add(String kind, Predicate predicate, String handler) {
+            List<String> patterns = new ArrayList<>();
+            patterns.add(null);
+            Set<String> methods = Set.of();
+            Set<String> conditions = new LinkedHashSet<>();
+
+            List<Predicate> levels = new ArrayList<>(nested);
+            Collections.reverse(levels);
+            levels.add(predicate);
+            for (Predicate level : levels) {
+                if (!level.paths.isEmpty()) {
+                    List<String> combined = new ArrayList<>();
+                    for (String prefix : patterns) {
+                        for (String path : level.paths) {
+                            combined.add(combine(prefix, path));
+                        }
+                    }
+                    patterns = combined;
+                }
+                if (!level.methods.isEmpty()) {
+                    methods = level.methods;
+                }
+                conditions.addAll(level.conditions);
+            }
+
+            for (String pattern : patterns) {
+                routes.add(RouteIndex.route(framework, kind, pattern, methods, List.of(), List.of(), conditions, handler, source));
+            }
+        }
+
+        private static String combine(String prefix, String path) {
+            if (prefix == null) {
+                return path;
+            }
+            if (prefix.endsWith("/") && path.startsWith("/")) {
+                return prefix + path.substring(1);
+            }
+            if (!prefix.endsWith("/") && !path.startsWith("/")) {
+                return prefix + "/" + path;
+            }
+            return prefix + path;
+        }
+
+        /**
+         * The handler of a functional route, usually a lambda, named after the class that declares it.
+         */
+        static String handler(Object handlerFunction) {
+            String name = handlerFunction.getClass().getName();
+            int lambda = name.indexOf("$$Lambda");
+            return lambda > 0 ? name.substring(0, lambda) + " (lambda)" : name;
+        }
+
+        private static final class Predicate {
+            final List<String> paths = new ArrayList<>();
+            final Set<String> methods = new TreeSet<>();
+            final Set<String> conditions = new LinkedHashSet<>();
+        }
+    }
+}
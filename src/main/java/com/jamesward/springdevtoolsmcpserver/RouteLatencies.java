@@ -0,0 +1,158 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Request latencies per matched route pattern, HTTP method and status class, recorded by
+ * {@link RouteLatencyFilter} and {@link RouteLatencyWebFilter}. Each combination gets a striped
+ * {@link LatencyHistogram} the first time it is hit, so recording a request is a map lookup by the pattern the
+ * handler mapping already exposes and a few atomic increments.
+ * <p>
+ * Requests are recorded into the current window. {@link #reset()} starts a new window and keeps the one it replaces
+ * as the previous window; requests in flight during the swap may be recorded in either.
+ */
+class RouteLatencies {
+
+    static final String UNMATCHED = "(unmatched)";
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", "OTHER"};
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final int STRIPES = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    private final Set<String> ignoredPatterns;
+
+    private volatile Window current = new Window();
+    private volatile Window previous;
+
+    /**
+     * @param ignoredPatterns route patterns that are not recorded, such as the MCP endpoints when they are served by
+     *                        the application
+     */
+    RouteLatencies(Set<String> ignoredPatterns) {
+        this.ignoredPatterns = ignoredPatterns;
+    }
+
+    void record(String pattern, String method, int status, long nanos) {
+        String route = pattern != null ? pattern : UNMATCHED;
+        if (ignoredPatterns.contains(route)) {
+            return;
+        }
+        current.route(route).histogram(methodIndex(method), statusIndex(status)).record(nanos);
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length - 1; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return METHODS.length - 1;
+    }
+
+    private static int statusIndex(int status) {
+        // a response without a status yet is sent as 200
+        return status <= 0 ? 1 : Math.max(0, Math.min(status / 100 - 1, STATUS_CLASSES.length - 1));
+    }
+
+    /**
+     * Starts a new window and returns the one it replaces.
+     */
+    synchronized Window reset() {
+        Window ended = current;
+        ended.endMillis = System.currentTimeMillis();
+        previous = ended;
+        current = new Window();
+        return ended;
+    }
+
+    Window current() {
+        return current;
+    }
+
+    Window previous() {
+        return previous;
+    }
+
+    static final class Window {
+        final long startMillis = System.currentTimeMillis();
+        volatile long endMillis;
+        private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+        private Route route(String pattern) {
+            Route route = routes.get(pattern);
+            return route != null ? route : routes.computeIfAbsent(pattern, key -> new Route());
+        }
+
+        /**
+         * One row per route, method and status class, sorted by request count or by p99 latency, optionally limited
+         * to the routes starting with {@code pathPrefix}.
+         */
+        Map<String, Object> toMap(String pathPrefix, boolean byP99, int top) {
+            long end = endMillis != 0 ? endMillis : System.currentTimeMillis();
+            double seconds = Math.max(end - startMillis, 1) / 1000.0;
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            long requests = 0;
+            for (Map.Entry<String, Route> route : routes.entrySet()) {
+                if (pathPrefix != null && !route.getKey().startsWith(pathPrefix)) {
+                    continue;
+                }
+                for (int method = 0; method < METHODS.length; method++) {
+                    for (int status = 0; status < STATUS_CLASSES.length; status++) {
+                        LatencyHistogram histogram = route.getValue().histograms.get(method * STATUS_CLASSES.length + status);
+                        if (histogram == null) {
+                            continue;
+                        }
+                        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+                        if (snapshot.count == 0) {
+                            continue;
+                        }
+                        requests += snapshot.count;
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("route", route.getKey());
+                        row.put("method", METHODS[method]);
+                        row.put("status", STATUS_CLASSES[status]);
+                        row.put("perSecond", Math.round(snapshot.count / seconds * 100) / 100.0);
+                        row.putAll(snapshot.toMillisMap());
+                        rows.add(row);
+                    }
+                }
+            }
+            rows.sort(Comparator.comparingDouble((Map<String, Object> row) -> ((Number) row.get(byP99 ? "p99Ms" : "count")).doubleValue()).reversed());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("windowStart", startMillis);
+            if (endMillis != 0) {
+                result.put("windowEnd", endMillis);
+            }
+            result.put("windowSeconds", seconds);
+            result.put("requests", requests);
+            result.put("routes", rows.size() > top ? rows.subList(0, top) : rows);
+            if (rows.size() > top) {
+                result.put("omittedRoutes", rows.size() - top);
+            }
+            return result;
+        }
+    }
+
+    private static final class Route {
+        final AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<>(METHODS.length * STATUS_CLASSES.length);
+
+        LatencyHistogram histogram(int method, int status) {
+            int index = method * STATUS_CLASSES.length + status;
+            LatencyHistogram histogram = histograms.get(index);
+            if (histogram == null) {
+                histograms.compareAndSet(index, null, new LatencyHistogram(STRIPES));
+                histogram = histograms.get(index);
+            }
+            return histogram;
+        }
+    }
+}
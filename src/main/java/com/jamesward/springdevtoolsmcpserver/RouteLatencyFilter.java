@@ -0,0 +1,88 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Records the latency of servlet requests in {@link RouteLatencies} by the route pattern that the handler mapping
+ * matched. Asynchronous requests are recorded when they complete. Only loaded in servlet applications.
+ */
+class RouteLatencyFilter implements Filter {
+
+    /**
+     * {@code HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE}, set by Spring MVC for annotated and functional routes.
+     */
+    private static final String BEST_MATCHING_PATTERN_ATTRIBUTE = "org.springframework.web.servlet.HandlerMapping.bestMatchingPattern";
+
+    private final RouteLatencies routeLatencies;
+
+    RouteLatencyFilter(RouteLatencies routeLatencies) {
+        this.routeLatencies = routeLatencies;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest httpRequest) || !(response instanceof HttpServletResponse httpResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && httpRequest.isAsyncStarted()) {
+                httpRequest.getAsyncContext().addListener(new CompletionListener(httpRequest, httpResponse, startNanos));
+            } else {
+                record(httpRequest, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : httpResponse.getStatus(), startNanos);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long startNanos) {
+        Object pattern = request.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+        routeLatencies.record(pattern != null ? pattern.toString() : null, request.getMethod(), status, System.nanoTime() - startNanos);
+    }
+
+    private final class CompletionListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long startNanos;
+
+        CompletionListener(HttpServletRequest request, HttpServletResponse response, long startNanos) {
+            this.request = request;
+            this.response = response;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response.getStatus(), startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // the listener is removed when the request goes asynchronous again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records the latency of WebFlux requests in {@link RouteLatencies} by the route pattern that the handler mapping
+ * matched, once the response completes. Cancelled requests are not recorded. Only loaded in reactive applications.
+ */
+class RouteLatencyWebFilter implements WebFilter {
+
+    /**
+     * {@code HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE}, set by WebFlux for annotated and functional routes.
+     */
+    private static final String BEST_MATCHING_PATTERN_ATTRIBUTE = "org.springframework.web.reactive.HandlerMapping.bestMatchingPattern";
+
+    private final RouteLatencies routeLatencies;
+
+    RouteLatencyWebFilter(RouteLatencies routeLatencies) {
+        this.routeLatencies = routeLatencies;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long startNanos = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                return;
+            }
+            Object pattern = exchange.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            int statusCode = signal == SignalType.ON_ERROR && status == null ? 500 : status != null ? status.value() : 0;
+            routeLatencies.record(pattern instanceof PathPattern pathPattern ? pathPattern.getPatternString() : pattern != null ? pattern.toString() : null,
+                    exchange.getRequest().getMethod().name(), statusCode, System.nanoTime() - startNanos);
+        });
+    }
+}
@@ -0,0 +1,375 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples JVM runtime metrics in the background: heap and non-heap memory, memory pools, garbage collections,
+ * threads, CPU load and class loading. The series are fixed when the sampler starts and each one is a primitive ring
+ * buffer of {@code capacity} samples, so recording a sample does not allocate beyond what the MXBeans return.
+ * <p>
+ * Enabled with {@code devtools.mcp.telemetry.enabled}, configured with {@code devtools.mcp.telemetry.interval} and
+ * {@code devtools.mcp.telemetry.capacity}.
+ */
+class RuntimeSampler implements DisposableBean {
+
+    private static final Log logger = LogFactory.getLog(RuntimeSampler.class);
+
+    private static final String BYTES = "bytes";
+    private static final String COUNT = "count";
+    private static final String MILLISECONDS = "ms";
+    private static final String RATIO = "ratio";
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<MemoryPoolMXBean> memoryPools = ManagementFactory.getMemoryPoolMXBeans();
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    private final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+
+    private final Duration interval;
+    private final int capacity;
+    private final String[] names;
+    private final String[] units;
+    /**
+     * Cumulative series, reported as the increase per sample.
+     */
+    private final boolean[] counters;
+
+    // written by the sampler thread only, copied into the ring under the lock
+    private final double[] scratch;
+
+    // guarded by this
+    private final long[] timestamps;
+    private final double[][] values;
+    private int next;
+    private long count;
+
+    private final ScheduledExecutorService scheduler;
+
+    RuntimeSampler(Duration interval, int capacity) {
+        if (interval.toMillis() < 1) {
+            throw new IllegalArgumentException("devtools.mcp.telemetry.interval must be at least 1ms, got " + interval);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("devtools.mcp.telemetry.capacity must be at least 1, got " + capacity);
+        }
+        this.interval = interval;
+        this.capacity = capacity;
+
+        List<String> names = new ArrayList<>();
+        List<String> units = new ArrayList<>();
+        List<Boolean> counters = new ArrayList<>();
+        series(names, units, counters, "heap.used", BYTES, false);
+        series(names, units, counters, "heap.committed", BYTES, false);
+        series(names, units, counters, "nonHeap.used", BYTES, false);
+        series(names, units, counters, "nonHeap.committed", BYTES, false);
+        for (MemoryPoolMXBean pool : memoryPools) {
+            series(names, units, counters, "pool." + pool.getName() + ".used", BYTES, false);
+        }
+        for (GarbageCollectorMXBean gc : garbageCollectors) {
+            series(names, units, counters, "gc." + gc.getName() + ".count", COUNT, true);
+            series(names, units, counters, "gc." + gc.getName() + ".time", MILLISECONDS, true);
+        }
+        series(names, units, counters, "threads.live", COUNT, false);
+        series(names, units, counters, "threads.daemon", COUNT, false);
+        series(names, units, counters, "threads.peak", COUNT, false);
+        series(names, units, counters, "cpu.process", RATIO, false);
+        series(names, units, counters, "cpu.system", RATIO, false);
+        series(names, units, counters, "load.average", COUNT, false);
+        series(names, units, counters, "classes.loaded", COUNT, false);
+        series(names, units, counters, "classes.totalLoaded", COUNT, true);
+        series(names, units, counters, "classes.unloaded", COUNT, true);
+
+        this.names = names.toArray(new String[0]);
+        this.units = units.toArray(new String[0]);
+        this.counters = new boolean[counters.size()];
+        for (int i = 0; i < this.counters.length; i++) {
+            this.counters[i] = counters.get(i);
+        }
+        this.scratch = new double[this.names.length];
+        this.timestamps = new long[capacity];
+        this.values = new double[this.names.length][capacity];
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "devtools-mcp-telemetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::sampleSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void series(List<String> names, List<String> units, List<Boolean> counters, String name, String unit, boolean counter) {
+        names.add(name);
+        units.add(unit);
+        counters.add(counter);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Throwable e) {
+            // an exception would cancel the schedule
+            logger.debug("Failed to sample runtime telemetry", e);
+        }
+    }
+
+    void sample() {
+        int i = 0;
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        scratch[i++] = heap.getUsed();
+        scratch[i++] = heap.getCommitted();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        scratch[i++] = nonHeap.getUsed();
+        scratch[i++] = nonHeap.getCommitted();
+        for (MemoryPoolMXBean pool : memoryPools) {
+            MemoryUsage usage = pool.isValid() ? pool.getUsage() : null;
+            scratch[i++] = usage != null ? usage.getUsed() : Double.NaN;
+        }
+        for (GarbageCollectorMXBean gc : garbageCollectors) {
+            scratch[i++] = gc.getCollectionCount();
+            scratch[i++] = gc.getCollectionTime();
+        }
+        scratch[i++] = threads.getThreadCount();
+        scratch[i++] = threads.getDaemonThreadCount();
+        scratch[i++] = threads.getPeakThreadCount();
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean os) {
+            scratch[i++] = loadOrNaN(os.getProcessCpuLoad());
+            scratch[i++] = loadOrNaN(os.getCpuLoad());
+        } else {
+            scratch[i++] = Double.NaN;
+            scratch[i++] = Double.NaN;
+        }
+        scratch[i++] = loadOrNaN(operatingSystem.getSystemLoadAverage());
+        scratch[i++] = classLoading.getLoadedClassCount();
+        scratch[i++] = classLoading.getTotalLoadedClassCount();
+        scratch[i++] = classLoading.getUnloadedClassCount();
+
+        long timestamp = System.currentTimeMillis();
+        synchronized (this) {
+            timestamps[next] = timestamp;
+            for (int series = 0; series < scratch.length; series++) {
+                values[series][next] = scratch[series];
+            }
+            next = (next + 1) % capacity;
+            count++;
+        }
+    }
+
+    /**
+     * The MXBeans report a negative value when the load is not available.
+     */
+    private static double loadOrNaN(double load) {
+        return load < 0 ? Double.NaN : load;
+    }
+
+    /**
+     * Returns the samples of the last {@code window}, or of the whole history when {@code window} is {@code null},
+     * for the series whose name starts with one of the comma separated {@code metrics} prefixes. Each series is
+     * summarized and, when {@code points} is positive, downsampled to at most that many values: the maximum of each
+     * bucket for gauges and the total increase of each bucket for counters.
+     */
+    Map<String, Object> toMap(String metrics, Duration window, int points) {
+        long[] sampleTimestamps;
+        double[][] sampleValues;
+        long total;
+        synchronized (this) {
+            total = count;
+            int size = (int) Math.min(count, capacity);
+            int first = (next - size + capacity) % capacity;
+            long from = window != null && size > 0 ? timestamps[(next - 1 + capacity) % capacity] - window.toMillis() : Long.MIN_VALUE;
+            int skip = 0;
+            while (skip < size && timestamps[(first + skip) % capacity] < from) {
+                skip++;
+            }
+            int length = size - skip;
+            int start = (first + skip) % capacity;
+            sampleTimestamps = new long[length];
+            sampleValues = new double[names.length][];
+            copy(timestamps, start, sampleTimestamps);
+            for (int series = 0; series < names.length; series++) {
+                if (selected(names[series], metrics)) {
+                    sampleValues[series] = new double[length];
+                    copy(values[series], start, sampleValues[series]);
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("intervalMs", interval.toMillis());
+        result.put("capacity", capacity);
+        result.put("totalSamples", total);
+        result.put("samples", sampleTimestamps.length);
+        if (sampleTimestamps.length == 0) {
+            return result;
+        }
+        result.put("from", sampleTimestamps[0]);
+        result.put("to", sampleTimestamps[sampleTimestamps.length - 1]);
+
+        int[] buckets = points > 0 ? buckets(sampleTimestamps.length, points) : null;
+        if (buckets != null) {
+            long[] bucketTimestamps = new long[buckets.length - 1];
+            for (int bucket = 0; bucket < bucketTimestamps.length; bucket++) {
+                bucketTimestamps[bucket] = sampleTimestamps[buckets[bucket + 1] - 1];
+            }
+            result.put("timestamps", bucketTimestamps);
+        }
+
+        Map<String, Object> series = new LinkedHashMap<>();
+        double seconds = (sampleTimestamps[sampleTimestamps.length - 1] - sampleTimestamps[0]) / 1000.0;
+        for (int i = 0; i < names.length; i++) {
+            if (sampleValues[i] != null) {
+                series.put(names[i], counters[i] ? counter(i, sampleValues[i], seconds, buckets) : gauge(i, sampleValues[i], buckets));
+            }
+        }
+        result.put("series", series);
+        return result;
+    }
+
+    private static boolean selected(String name, String metrics) {
+        if (metrics == null || metrics.isBlank()) {
+            return true;
+        }
+        for (String prefix : metrics.split(",")) {
+            if (name.startsWith(prefix.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void copy(long[] ring, int start, long[] target) {
+        int head = Math.min(target.length, capacity - start);
+        System.arraycopy(ring, start, target, 0, head);
+        System.arraycopy(ring, 0, target, head, target.length - head);
+    }
+
+    private void copy(double[] ring, int start, double[] target) {
+        int head = Math.min(target.length, capacity - start);
+        System.arraycopy(ring, start, target, 0, head);
+        System.arraycopy(ring, 0, target, head, target.length - head);
+    }
+
+    /**
+     * Bucket boundaries splitting {@code size} samples into at most {@code points} buckets.
+     */
+    private static int[] buckets(int size, int points) {
+        int count = Math.min(size, points);
+        int[] boundaries = new int[count + 1];
+        for (int bucket = 0; bucket <= count; bucket++) {
+            boundaries[bucket] = (int) ((long) bucket * size / count);
+        }
+        return boundaries;
+    }
+
+    private Map<String, Object> gauge(int series, double[] samples, int[] buckets) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("unit", units[series]);
+        result.put("last", round(samples[samples.length - 1]));
+        summarize(samples, result);
+        if (buckets != null) {
+            double[] points = new double[buckets.length - 1];
+            for (int bucket = 0; bucket < points.length; bucket++) {
+                double max = Double.NaN;
+                for (int i = buckets[bucket]; i < buckets[bucket + 1]; i++) {
+                    if (!Double.isNaN(samples[i]) && (Double.isNaN(max) || samples[i] > max)) {
+                        max = samples[i];
+                    }
+                }
+                points[bucket] = round(max);
+            }
+            result.put("values", points);
+        }
+        return result;
+    }
+
+    private Map<String, Object> counter(int series, double[] samples, double seconds, int[] buckets) {
+        double[] increases = new double[samples.length - 1];
+        for (int i = 1; i < samples.length; i++) {
+            increases[i - 1] = samples[i] - samples[i - 1];
+        }
+        double increase = samples[samples.length - 1] - samples[0];
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("unit", units[series]);
+        result.put("total", round(samples[samples.length - 1]));
+        result.put("increase", round(increase));
+        if (seconds > 0) {
+            result.put("ratePerSecond", round(increase / seconds));
+        }
+        if (increases.length > 0) {
+            summarize(increases, result);
+        }
+        if (buckets != null) {
+            double[] points = new double[buckets.length - 1];
+            for (int bucket = 0; bucket < points.length; bucket++) {
+                // the increase up to the last sample of the bucket from the last sample of the previous one
+                int from = Math.max(buckets[bucket] - 1, 0);
+                points[bucket] = round(samples[buckets[bucket + 1] - 1] - samples[from]);
+            }
+            result.put("values", points);
+        }
+        return result;
+    }
+
+    /**
+     * Adds min, max, mean and percentiles of the samples, ignoring unavailable ones.
+     */
+    private static void summarize(double[] samples, Map<String, Object> result) {
+        double[] sorted = new double[samples.length];
+        int size = 0;
+        double sum = 0;
+        for (double sample : samples) {
+            if (!Double.isNaN(sample)) {
+                sorted[size++] = sample;
+                sum += sample;
+            }
+        }
+        if (size == 0) {
+            return;
+        }
+        Arrays.sort(sorted, 0, size);
+        result.put("min", round(sorted[0]));
+        result.put("max", round(sorted[size - 1]));
+        result.put("mean", round(sum / size));
+        result.put("p50", round(percentile(sorted, size, 50)));
+        result.put("p95", round(percentile(sorted, size, 95)));
+        result.put("p99", round(percentile(sorted, size, 99)));
+    }
+
+    private static double percentile(double[] sorted, int size, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+
+    /**
+     * Keeps ratios readable and byte counts exact.
+     */
+    private static double round(double value) {
+        return Math.abs(value) < 1000 ? Math.round(value * 1000) / 1000.0 : Math.rint(value);
+    }
+}
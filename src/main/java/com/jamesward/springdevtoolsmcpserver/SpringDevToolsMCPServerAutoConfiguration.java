@@ -1,23 +1,38 @@
 package com.jamesward.springdevtoolsmcpserver;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.modelcontextprotocol.server.McpAsyncServer;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.server.transport.WebFluxSseServerTransportProvider;
 import io.modelcontextprotocol.spec.McpSchema;
 import org.springframework.ai.mcp.McpToolUtils;
-import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
-import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
-import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import javax.management.JMException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Auto-configuration for Spring DevTools MCP Server.
@@ -26,63 +41,389 @@ import java.util.List;
 @AutoConfiguration
 public class SpringDevToolsMCPServerAutoConfiguration {
 
+    private static final String SERVER_NAME = "Spring Devtools MCP Server";
+    private static final String SERVER_VERSION = "1.0.0";
+
+    private static final int DEFAULT_PORT = 9999;
+    private static final String DEFAULT_SSE_PATH = "/sse";
+    private static final String DEFAULT_MESSAGE_PATH = "/mcp";
+    private static final long DEFAULT_MAX_RESPONSE_BYTES = 100 * 1024;
+    private static final Duration DEFAULT_TELEMETRY_INTERVAL = Duration.ofSeconds(1);
+    private static final int DEFAULT_TELEMETRY_CAPACITY = 3600;
+    private static final Duration DEFAULT_POOL_SAMPLER_INTERVAL = Duration.ofSeconds(1);
+    private static final int DEFAULT_POOL_SAMPLER_CAPACITY = 300;
+    private static final int DEFAULT_SESSION_MAX_QUEUED_EVENTS = 256;
+    private static final long DEFAULT_SESSION_MAX_QUEUED_BYTES = 16 * 1024 * 1024;
+    private static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    /**
+     * The time spent building the transport, the tool callbacks and the server, added up by their bean methods, which
+     * the web server bean depends on and so runs after on the same thread. The tool beans and their dependencies are
+     * created before and not counted.
+     */
+    private long setupNanos;
+
+    @Bean
+    BeanCatalog devToolsBeanCatalog(ConfigurableListableBeanFactory beanFactory) {
+        return new BeanCatalog(beanFactory);
+    }
+
+    @Bean
+    PropertyIndex devToolsPropertyIndex(Environment environment) {
+        return new PropertyIndex(environment);
+    }
+
     @Bean
-    DevToolsMCPServer.StandardTools standardTools(ApplicationContext applicationContext, Environment environment) {
-        return new DevToolsMCPServer.StandardTools(applicationContext, environment);
+    AutoConfigurationReport devToolsAutoConfigurationReport(ConfigurableListableBeanFactory beanFactory, BeanCatalog beanCatalog) {
+        return new AutoConfigurationReport(beanFactory, beanCatalog);
+    }
+
+    @Bean
+    RouteIndex devToolsRouteIndex(ApplicationContext applicationContext) {
+        return new RouteIndex(applicationContext);
+    }
+
+    @Bean
+    BeanGraph devToolsBeanGraph(ConfigurableListableBeanFactory beanFactory) {
+        return new BeanGraph(beanFactory);
+    }
+
+    @Bean
+    DevToolsMCPServer.BeanGraphTools beanGraphTools(BeanGraph beanGraph, Environment environment) {
+        return new DevToolsMCPServer.BeanGraphTools(beanGraph, maxResponseBytes(environment));
+    }
+
+    @Bean
+    DevToolsMCPServer.StandardTools standardTools(ApplicationContext applicationContext, Environment environment, BeanCatalog beanCatalog,
+                                                  PropertyIndex propertyIndex, AutoConfigurationReport autoConfigurationReport) {
+        return new DevToolsMCPServer.StandardTools(applicationContext, environment, beanCatalog, propertyIndex, autoConfigurationReport,
+            maxResponseBytes(environment));
     }
 
     @Bean
     @ConditionalOnClass(name = "org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping")
-    DevToolsMCPServer.WebMvcTools webMvcTools(ApplicationContext applicationContext) {
-        return new DevToolsMCPServer.WebMvcTools(applicationContext);
+    DevToolsMCPServer.WebMvcTools webMvcTools(RouteIndex routeIndex, Environment environment) {
+        return new DevToolsMCPServer.WebMvcTools(routeIndex, maxResponseBytes(environment));
     }
 
     // todo: without shading the deps, this will always be there
     @Bean
     @ConditionalOnClass(name = "org.springframework.web.reactive.function.server.RouterFunction")
-    DevToolsMCPServer.WebFluxTools webFluxTools(ApplicationContext applicationContext) {
-        return new DevToolsMCPServer.WebFluxTools(applicationContext);
+    DevToolsMCPServer.WebFluxTools webFluxTools(RouteIndex routeIndex, Environment environment) {
+        return new DevToolsMCPServer.WebFluxTools(routeIndex, maxResponseBytes(environment));
     }
 
     @Bean
-    McpSyncServer devToolsMCPServer(DevToolsMCPServer.StandardTools standardTools,
-                                   List<DevToolsMCPServer.WebMvcTools> webMvcTools,
-                                    List<DevToolsMCPServer.WebFluxTools> webFluxTools) {
-        McpSchema.ServerCapabilities capabilities = McpSchema.ServerCapabilities.builder()
-            .tools(true)
-            .logging()
-            .build();
+    DevToolsMCPServer.RouteTools routeTools(RouteIndex routeIndex, ObjectProvider<RouteLatencies> routeLatencies) {
+        return new DevToolsMCPServer.RouteTools(routeIndex, routeLatencies.getIfAvailable());
+    }
+
+    @Bean
+    ChangeFeed devToolsChangeFeed(BeanCatalog beanCatalog, PropertyIndex propertyIndex, Environment environment, RouteIndex routeIndex,
+                                  McpSessions sessions) {
+        return new ChangeFeed(beanCatalog, propertyIndex, environment, routeIndex, sessions);
+    }
+
+    @Bean
+    DevToolsMCPServer.ChangeTools changeTools(ChangeFeed changeFeed, Environment environment) {
+        return new DevToolsMCPServer.ChangeTools(changeFeed, maxResponseBytes(environment));
+    }
+
+    @Bean
+    StartupProfiles devToolsStartupProfiles() {
+        return new StartupProfiles();
+    }
+
+    @Bean
+    DevToolsMCPServer.StartupTools startupTools(StartupProfiles startupProfiles, Environment environment) {
+        return new DevToolsMCPServer.StartupTools(startupProfiles, maxResponseBytes(environment));
+    }
+
+    @Bean
+    DevToolsMCPServer.DiagnosticTools diagnosticTools() {
+        // JfrProfiler links against jdk.jfr, which a trimmed runtime image may not include
+        JfrProfiler jfrProfiler = ClassUtils.isPresent("jdk.jfr.consumer.RecordingStream", null) ? new JfrProfiler() : null;
+        HeapHistograms heapHistograms;
+        try {
+            heapHistograms = new HeapHistograms();
+        } catch (JMException e) {
+            heapHistograms = null;
+        }
+        return new DevToolsMCPServer.DiagnosticTools(new HotThreads(), jfrProfiler, heapHistograms);
+    }
+
+    @Bean
+    PoolInspector devToolsPoolInspector(ConfigurableListableBeanFactory beanFactory) {
+        return new PoolInspector(beanFactory);
+    }
+
+    @Bean
+    DevToolsMCPServer.PoolTools poolTools(PoolInspector poolInspector, ObjectProvider<PoolSampler> poolSampler, Environment environment) {
+        return new DevToolsMCPServer.PoolTools(poolInspector, poolSampler.getIfAvailable(), maxResponseBytes(environment));
+    }
+
+    @Bean
+    ToolMetrics devToolsMCPToolMetrics(ObjectProvider<ToolMetrics.Listener> listeners) {
+        return new ToolMetrics(listeners.orderedStream().toList());
+    }
+
+    @Bean
+    DevToolsMCPServer.ServerTools serverTools(ToolMetrics toolMetrics, McpSessions sessions) {
+        return new DevToolsMCPServer.ServerTools(toolMetrics, sessions);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "devtools.mcp.telemetry.enabled", havingValue = "true")
+    static class TelemetryConfiguration {
+
+        @Bean
+        RuntimeSampler devToolsRuntimeSampler(Environment environment) {
+            String interval = environment.getProperty("devtools.mcp.telemetry.interval");
+            return new RuntimeSampler(
+                interval != null && !interval.isBlank() ? DurationStyle.detectAndParse(interval) : DEFAULT_TELEMETRY_INTERVAL,
+                environment.getProperty("devtools.mcp.telemetry.capacity", Integer.class, DEFAULT_TELEMETRY_CAPACITY));
+        }
 
-        ObjectMapper objectMapper = new ObjectMapper();
+        @Bean
+        DevToolsMCPServer.TelemetryTools telemetryTools(RuntimeSampler runtimeSampler) {
+            return new DevToolsMCPServer.TelemetryTools(runtimeSampler);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "devtools.mcp.pools.sampler.enabled", havingValue = "true")
+    static class PoolSamplerConfiguration {
+
+        @Bean
+        PoolSampler devToolsPoolSampler(PoolInspector poolInspector, Environment environment) {
+            String interval = environment.getProperty("devtools.mcp.pools.sampler.interval");
+            return new PoolSampler(poolInspector,
+                interval != null && !interval.isBlank() ? DurationStyle.detectAndParse(interval) : DEFAULT_POOL_SAMPLER_INTERVAL,
+                environment.getProperty("devtools.mcp.pools.sampler.capacity", Integer.class, DEFAULT_POOL_SAMPLER_CAPACITY));
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "devtools.mcp.logs.enabled", havingValue = "true", matchIfMissing = true)
+    static class LogConfiguration {
+
+        @Bean
+        LogCapture devToolsLogCapture(Environment environment) {
+            return new LogCapture(environment.getProperty(LogCaptureListener.CAPACITY_PROPERTY, Integer.class, LogCaptureListener.DEFAULT_CAPACITY));
+        }
+
+        @Bean
+        DevToolsMCPServer.LogTools logTools(LogCapture logCapture, Environment environment) {
+            return new DevToolsMCPServer.LogTools(logCapture, maxResponseBytes(environment));
+        }
+    }
+
+    /**
+     * Records request latencies per route of the application, not of the MCP endpoints.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "devtools.mcp.route-latency.enabled", havingValue = "true")
+    static class RouteLatencyConfiguration {
+
+        @Bean
+        RouteLatencies devToolsRouteLatencies(Environment environment) {
+            return new RouteLatencies(Set.copyOf(List.of(
+                environment.getProperty("devtools.mcp.sse-path", DEFAULT_SSE_PATH),
+                environment.getProperty("devtools.mcp.message-path", DEFAULT_MESSAGE_PATH))));
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        static class ServletRouteLatencyConfiguration {
 
-        WebFluxSseServerTransportProvider transport = new WebFluxSseServerTransportProvider(objectMapper, "/mcp");
+            @Bean
+            FilterRegistrationBean<RouteLatencyFilter> devToolsRouteLatencyFilter(RouteLatencies routeLatencies) {
+                FilterRegistrationBean<RouteLatencyFilter> registration = new FilterRegistrationBean<>(new RouteLatencyFilter(routeLatencies));
+                registration.setName("devToolsRouteLatencyFilter");
+                registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+                return registration;
+            }
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        static class ReactiveRouteLatencyConfiguration {
+
+            @Bean
+            @Order(Ordered.HIGHEST_PRECEDENCE + 10)
+            RouteLatencyWebFilter devToolsRouteLatencyWebFilter(RouteLatencies routeLatencies) {
+                return new RouteLatencyWebFilter(routeLatencies);
+            }
+        }
+    }
 
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerConfiguration {
+
+        @Bean
+        MicrometerToolMetricsListener devToolsMCPMicrometerListener(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new MicrometerToolMetricsListener(meterRegistry);
+        }
+    }
+
+    @Bean
+    McpSessions devToolsMCPSessions(Environment environment) {
+        String idleTimeout = environment.getProperty("devtools.mcp.session.idle-timeout");
+        return new McpSessions(
+            environment.getProperty("devtools.mcp.sse-path", DEFAULT_SSE_PATH),
+            environment.getProperty("devtools.mcp.message-path", DEFAULT_MESSAGE_PATH),
+            environment.getProperty("devtools.mcp.session.max-queued-events", Integer.class, DEFAULT_SESSION_MAX_QUEUED_EVENTS),
+            environment.getProperty("devtools.mcp.session.max-queued-bytes", Long.class, DEFAULT_SESSION_MAX_QUEUED_BYTES),
+            idleTimeout != null && !idleTimeout.isBlank() ? DurationStyle.detectAndParse(idleTimeout) : DEFAULT_SESSION_IDLE_TIMEOUT);
+    }
+
+    @Bean
+    WebFluxSseServerTransportProvider devToolsMCPTransport(Environment environment) {
+        long startNanos = System.nanoTime();
+        WebFluxSseServerTransportProvider transport = new WebFluxSseServerTransportProvider(new ObjectMapper(),
+            environment.getProperty("devtools.mcp.message-path", DEFAULT_MESSAGE_PATH),
+            environment.getProperty("devtools.mcp.sse-path", DEFAULT_SSE_PATH));
+        setupNanos += System.nanoTime() - startNanos;
+        return transport;
+    }
+
+    /**
+     * The tools of the server, whichever of the sync and async servers is created. The optional tools are lists,
+     * empty when their configuration is disabled.
+     */
+    @Bean
+    McpToolCallbacks devToolsMCPToolCallbacks(Environment environment,
+                                              ToolMetrics toolMetrics,
+                                              DevToolsMCPServer.StandardTools standardTools,
+                                              DevToolsMCPServer.ServerTools serverTools,
+                                              DevToolsMCPServer.RouteTools routeTools,
+                                              DevToolsMCPServer.DiagnosticTools diagnosticTools,
+                                              DevToolsMCPServer.ChangeTools changeTools,
+                                              DevToolsMCPServer.BeanGraphTools beanGraphTools,
+                                              DevToolsMCPServer.StartupTools startupTools,
+                                              DevToolsMCPServer.PoolTools poolTools,
+                                              List<DevToolsMCPServer.WebMvcTools> webMvcTools,
+                                              List<DevToolsMCPServer.WebFluxTools> webFluxTools,
+                                              List<DevToolsMCPServer.TelemetryTools> telemetryTools,
+                                              List<DevToolsMCPServer.LogTools> logTools) {
+        long startNanos = System.nanoTime();
         List<Object> toolObjects = new ArrayList<>();
         toolObjects.add(standardTools);
+        toolObjects.add(serverTools);
+        toolObjects.add(routeTools);
+        toolObjects.add(diagnosticTools);
+        toolObjects.add(changeTools);
+        toolObjects.add(beanGraphTools);
+        toolObjects.add(startupTools);
+        toolObjects.add(poolTools);
         toolObjects.addAll(webMvcTools);
         toolObjects.addAll(webFluxTools);
+        toolObjects.addAll(telemetryTools);
+        toolObjects.addAll(logTools);
+        McpToolCallbacks toolCallbacks = new McpToolCallbacks(toolObjects, toolMetrics, maxConcurrentTools(environment));
+        setupNanos += System.nanoTime() - startNanos;
+        return toolCallbacks;
+    }
 
-        MethodToolCallbackProvider toolCallbackProvider = MethodToolCallbackProvider.builder()
-            .toolObjects(toolObjects.toArray())
-            .build();
-
-        var tools = McpToolUtils.toSyncToolSpecification(List.of(toolCallbackProvider.getToolCallbacks()));
+    @Bean
+    @ConditionalOnProperty(name = "devtools.mcp.async", havingValue = "false", matchIfMissing = true)
+    McpSyncServer devToolsMCPServer(WebFluxSseServerTransportProvider transport, McpToolCallbacks toolCallbacks) {
+        long startNanos = System.nanoTime();
+        var tools = McpToolUtils.toSyncToolSpecification(toolCallbacks.callbacks());
 
         // this sets up the transport with the handlers - yeah, fun side-effects
         McpSyncServer server = McpServer.sync(transport)
-            .serverInfo("Spring Devtools MCP Server", "1.0.0")
-            .capabilities(capabilities)
+            .serverInfo(SERVER_NAME, SERVER_VERSION)
+            .capabilities(capabilities())
             .tools(tools)
             .build();
+        setupNanos += System.nanoTime() - startNanos;
 
+        return server;
+    }
 
-//        int port = Integer.parseInt(environment.getProperty("devtools.mcp.port", "9999"));
+    @Bean
+    @ConditionalOnProperty(name = "devtools.mcp.async", havingValue = "true")
+    McpToolExecutor devToolsMCPToolExecutor(Environment environment) {
+        return new McpToolExecutor(environment);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "devtools.mcp.async", havingValue = "true")
+    McpAsyncServer devToolsAsyncMCPServer(WebFluxSseServerTransportProvider transport,
+                                          McpToolExecutor toolExecutor,
+                                          McpToolCallbacks toolCallbacks) {
+        long startNanos = System.nanoTime();
+        var tools = toolExecutor.toAsyncToolSpecifications(McpToolUtils.toSyncToolSpecification(toolCallbacks.callbacks()));
 
-        // todo: externalize port
-        var httpHandler = RouterFunctions.toHttpHandler(transport.getRouterFunction());
-        var webServer = new NettyReactiveWebServerFactory(9999).getWebServer(httpHandler);
-        webServer.start();
+        McpAsyncServer server = McpServer.async(transport)
+            .serverInfo(SERVER_NAME, SERVER_VERSION)
+            .capabilities(capabilities())
+            .tools(tools)
+            .build();
+        setupNanos += System.nanoTime() - startNanos;
 
         return server;
     }
+
+    /**
+     * Serves the MCP endpoints from the host application's WebFlux server instead of a dedicated one.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "devtools.mcp.mount-on-host", havingValue = "true")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    RouterFunction<?> devToolsMCPRouterFunction(WebFluxSseServerTransportProvider transport,
+                                                McpSessions sessions,
+                                                ObjectProvider<McpSyncServer> syncServer,
+                                                ObjectProvider<McpAsyncServer> asyncServer) {
+        // the servers register their handlers on the transport, so they have to exist before it serves requests
+        syncServer.getIfAvailable();
+        asyncServer.getIfAvailable();
+        return routerFunction(transport, sessions);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(name = "devToolsMCPRouterFunction")
+    McpWebServer devToolsMCPWebServer(WebFluxSseServerTransportProvider transport,
+                                      McpSessions sessions,
+                                      ObjectProvider<McpSyncServer> syncServer,
+                                      ObjectProvider<McpAsyncServer> asyncServer,
+                                      Environment environment) {
+        syncServer.getIfAvailable();
+        asyncServer.getIfAvailable();
+
+        return new McpWebServer(routerFunction(transport, sessions),
+            environment.getProperty("devtools.mcp.port", Integer.class, DEFAULT_PORT),
+            environment.getProperty("devtools.mcp.sse-path", DEFAULT_SSE_PATH),
+            !"eager".equalsIgnoreCase(environment.getProperty("devtools.mcp.startup", "deferred")),
+            setupNanos);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RouterFunction<?> routerFunction(WebFluxSseServerTransportProvider transport, McpSessions sessions) {
+        return ((RouterFunction<ServerResponse>) transport.getRouterFunction()).filter(sessions);
+    }
+
+    /**
+     * The smaller of {@code devtools.mcp.response.max-bytes} and {@code devtools.mcp.response.max-tokens}, counting
+     * about 4 bytes per token.
+     */
+    private static long maxResponseBytes(Environment environment) {
+        long maxBytes = environment.getProperty("devtools.mcp.response.max-bytes", Long.class, DEFAULT_MAX_RESPONSE_BYTES);
+        Long maxTokens = environment.getProperty("devtools.mcp.response.max-tokens", Long.class);
+        return maxTokens != null ? Math.min(maxBytes, maxTokens * 4) : maxBytes;
+    }
+
+    private static int maxConcurrentTools(Environment environment) {
+        return environment.getProperty("devtools.mcp.max-concurrent-tools", Integer.class,
+            Math.max(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static McpSchema.ServerCapabilities capabilities() {
+        return McpSchema.ServerCapabilities.builder()
+            .tools(true)
+            .logging()
+            .build();
+    }
 }
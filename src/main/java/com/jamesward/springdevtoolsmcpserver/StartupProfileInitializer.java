@@ -0,0 +1,43 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * Installs a {@link BufferingApplicationStartup} on the context before it is refreshed, when
+ * {@code devtools.mcp.startup-profile.enabled} is set, so that {@link StartupProfiles} can read the bean creation
+ * and context steps once the application is ready. An application that already sets a
+ * {@link BufferingApplicationStartup} on its {@code SpringApplication} keeps it, and it is read without being drained
+ * so that the actuator {@code startup} endpoint still sees the steps.
+ * <p>
+ * Registered in {@code META-INF/spring.factories} as initializers run before the auto-configuration is processed.
+ * They also run again for every devtools restart, so each restart gets a new buffer.
+ */
+public class StartupProfileInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    static final String ENABLED_PROPERTY = "devtools.mcp.startup-profile.enabled";
+    static final String CAPACITY_PROPERTY = "devtools.mcp.startup-profile.capacity";
+    static final int DEFAULT_CAPACITY = 20_000;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        ConfigurableEnvironment environment = context.getEnvironment();
+        if (!environment.getProperty(ENABLED_PROPERTY, Boolean.class, false)
+                || context.getApplicationStartup() instanceof BufferingApplicationStartup) {
+            return;
+        }
+        context.setApplicationStartup(new InstalledApplicationStartup(
+                environment.getProperty(CAPACITY_PROPERTY, Integer.class, DEFAULT_CAPACITY)));
+    }
+
+    /**
+     * Marks the buffers installed here, which nothing else reads and can be drained once profiled.
+     */
+    static final class InstalledApplicationStartup extends BufferingApplicationStartup {
+        InstalledApplicationStartup(int capacity) {
+            super(capacity);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Profiles of the application startups recorded by a {@link BufferingApplicationStartup}, see
+ * {@link StartupProfileInitializer}. When the application is ready the buffered steps are read and reduced to
+ * the time spent creating each bean, excluding the beans it created in turn, the time per configuration class that
+ * declares beans, the time per context step, and the critical path: the chain of nested bean creations that took the
+ * longest.
+ * <p>
+ * The profiles are static, {@linkplain com.jamesward.springdevtoolsmcpserver kept across restarts}, so the last
+ * {@link #MAX_RUNS} startups can be compared with each other.
+ */
+class StartupProfiles implements ApplicationListener<ApplicationReadyEvent> {
+
+    static final int MAX_RUNS = 10;
+
+    private static final String BEAN_STEP = "spring.beans.instantiate";
+    private static final Deque<Run> RUNS = new ArrayDeque<>();
+    private static int nextRun = 1;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        if (context.getApplicationStartup() instanceof BufferingApplicationStartup startup) {
+            // the application's own buffer may also be read by the actuator startup endpoint
+            StartupTimeline timeline = startup instanceof StartupProfileInitializer.InstalledApplicationStartup
+                    ? startup.drainBufferedTimeline()
+                    : startup.getBufferedTimeline();
+            record(timeline, event.getTimeTaken(), context.getBeanFactory());
+        }
+    }
+
+    void record(StartupTimeline timeline, Duration timeTaken, ConfigurableListableBeanFactory beanFactory) {
+        Map<Long, Step> steps = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            StartupStep step = event.getStartupStep();
+            Step recorded = new Step(step.getName(), step.getParentId(), event.getDuration().toNanos());
+            for (StartupStep.Tag tag : step.getTags()) {
+                if ("beanName".equals(tag.getKey())) {
+                    recorded.beanName = tag.getValue();
+                } else if ("beanType".equals(tag.getKey())) {
+                    recorded.beanType = tag.getValue();
+                }
+            }
+            steps.put(step.getId(), recorded);
+        }
+        if (steps.isEmpty()) {
+            return;
+        }
+        // steps are buffered as they end, so when the buffer fills up the outer steps are the ones missing
+        boolean incomplete = false;
+        for (Step step : steps.values()) {
+            Step parent = step.parentId != null ? steps.get(step.parentId) : null;
+            if (parent != null) {
+                parent.children.add(step);
+                parent.childNanos += step.nanos;
+                step.parent = parent;
+            } else if (step.parentId != null) {
+                incomplete = true;
+            }
+        }
+
+        Map<String, Bean> beans = new HashMap<>();
+        Map<String, long[]> otherSteps = new HashMap<>();
+        Step critical = null;
+        for (Step step : steps.values()) {
+            if (!step.isBean()) {
+                long[] totals = otherSteps.computeIfAbsent(step.name, key -> new long[2]);
+                totals[0]++;
+                totals[1] += step.nanos;
+                continue;
+            }
+            Bean bean = beans.computeIfAbsent(step.beanName, name -> new Bean(name, configuration(beanFactory, name)));
+            bean.type = step.beanType != null ? step.beanType : bean.type;
+            bean.count++;
+            bean.totalNanos += step.nanos;
+            bean.selfNanos += Math.max(0, step.nanos - step.childNanos);
+            if ((step.parent == null || !step.parent.isBean()) && (critical == null || step.nanos > critical.nanos)) {
+                critical = step;
+            }
+        }
+
+        List<Bean> criticalPath = new ArrayList<>();
+        for (Step step = critical; step != null; step = step.slowestBeanChild()) {
+            Bean bean = beans.get(step.beanName);
+            criticalPath.add(new Bean(bean.name, bean.configuration, bean.type, 1, step.nanos, Math.max(0, step.nanos - step.childNanos)));
+        }
+
+        synchronized (RUNS) {
+            RUNS.addFirst(new Run(nextRun++, System.currentTimeMillis(), timeTaken, incomplete, beans, otherSteps, criticalPath));
+            while (RUNS.size() > MAX_RUNS) {
+                RUNS.removeLast();
+            }
+        }
+    }
+
+    private static String configuration(ConfigurableListableBeanFactory beanFactory, String beanName) {
+        try {
+            BeanDefinition definition = beanFactory.getMergedBeanDefinition(beanName);
+            return definition.getFactoryBeanName();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * The run numbered {@code run}, or the latest run when {@code run} is {@code null}.
+     */
+    Run run(Integer run) {
+        synchronized (RUNS) {
+            for (Run candidate : RUNS) {
+                if (run == null || candidate.number == run) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The run before the run numbered {@code run}.
+     */
+    Run previous(int run) {
+        synchronized (RUNS) {
+            for (Run candidate : RUNS) {
+                if (candidate.number < run) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+    }
+
+    List<Map<String, Object>> runs() {
+        List<Map<String, Object>> runs = new ArrayList<>();
+        synchronized (RUNS) {
+            for (Run run : RUNS) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("run", run.number);
+                summary.put("finishedAt", run.finishedAt);
+                summary.put("startupMs", run.timeTaken != null ? run.timeTaken.toMillis() : null);
+                summary.put("beans", run.beans.size());
+                runs.add(summary);
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * The slowest beans, configurations and context steps of {@code run}, with its critical path.
+     */
+    static Map<String, Object> toMap(Run run, int top) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("run", run.number);
+        result.put("finishedAt", run.finishedAt);
+        result.put("startupMs", run.timeTaken != null ? run.timeTaken.toMillis() : null);
+        if (run.incomplete) {
+            result.put("incomplete", "the startup buffer was full, raise " + StartupProfileInitializer.CAPACITY_PROPERTY);
+        }
+        result.put("beans", run.beans.size());
+        result.put("beanCreationMs", millis(run.beans.values().stream().mapToLong(bean -> bean.selfNanos).sum()));
+
+        List<Bean> slowest = new ArrayList<>(run.beans.values());
+        slowest.sort(Comparator.comparingLong((Bean bean) -> bean.selfNanos).reversed());
+        List<Map<String, Object>> slowestBeans = new ArrayList<>();
+        for (Bean bean : slowest.subList(0, Math.min(top, slowest.size()))) {
+            slowestBeans.add(bean.toMap());
+        }
+        result.put("slowestBeans", slowestBeans);
+
+        List<Map<String, Object>> criticalPath = new ArrayList<>();
+        for (Bean bean : run.criticalPath) {
+            criticalPath.add(bean.toMap());
+        }
+        result.put("criticalPath", criticalPath);
+
+        Map<String, Long> configurations = new HashMap<>();
+        for (Bean bean : run.beans.values()) {
+            if (bean.configuration != null) {
+                configurations.merge(bean.configuration, bean.selfNanos, Long::sum);
+            }
+        }
+        // a configuration's own creation is part of what making it conditional or lazy saves
+        for (Map.Entry<String, Long> configuration : configurations.entrySet()) {
+            Bean bean = run.beans.get(configuration.getKey());
+            if (bean != null) {
+                configuration.setValue(configuration.getValue() + bean.selfNanos);
+            }
+        }
+        result.put("slowestConfigurations", topMillis(configurations, top));
+
+        Map<String, Long> steps = new HashMap<>();
+        run.steps.forEach((name, totals) -> steps.put(name + " (" + totals[0] + ")", totals[1]));
+        result.put("contextSteps", topMillis(steps, top));
+        return result;
+    }
+
+    /**
+     * The changes from {@code base} to {@code run}: the startup time and bean creation time, the beans whose own
+     * creation time changed the most, and the beans only created in one of them.
+     */
+    static Map<String, Object> compare(Run base, Run run, int top) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("baseRun", base.number);
+        result.put("run", run.number);
+        if (base.timeTaken != null && run.timeTaken != null) {
+            result.put("startupMs", run.timeTaken.toMillis());
+            result.put("startupDeltaMs", run.timeTaken.toMillis() - base.timeTaken.toMillis());
+        }
+        long baseNanos = base.beans.values().stream().mapToLong(bean -> bean.selfNanos).sum();
+        long runNanos = run.beans.values().stream().mapToLong(bean -> bean.selfNanos).sum();
+        result.put("beanCreationDeltaMs", millis(runNanos - baseNanos));
+
+        Map<String, Long> deltas = new HashMap<>();
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        Set<String> names = new HashSet<>(base.beans.keySet());
+        names.addAll(run.beans.keySet());
+        for (String name : names) {
+            Bean before = base.beans.get(name);
+            Bean after = run.beans.get(name);
+            if (before == null) {
+                added.add(name);
+            } else if (after == null) {
+                removed.add(name);
+            }
+            deltas.put(name, (after != null ? after.selfNanos : 0) - (before != null ? before.selfNanos : 0));
+        }
+        List<Map.Entry<String, Long>> changed = new ArrayList<>(deltas.entrySet());
+        changed.sort(Comparator.comparingLong((Map.Entry<String, Long> delta) -> Math.abs(delta.getValue())).reversed());
+        Map<String, Object> largest = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> delta : changed.subList(0, Math.min(top, changed.size()))) {
+            largest.put(delta.getKey(), millis(delta.getValue()));
+        }
+        result.put("largestBeanDeltasMs", largest);
+        added.sort(null);
+        removed.sort(null);
+        result.put("addedBeans", added.size() > top ? added.subList(0, top) : added);
+        result.put("removedBeans", removed.size() > top ? removed.subList(0, top) : removed);
+        return result;
+    }
+
+    private static Map<String, Object> topMillis(Map<String, Long> nanos, int top) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(nanos.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(top, entries.size()))) {
+            result.put(entry.getKey(), millis(entry.getValue()));
+        }
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    static final class Run {
+        final int number;
+        final long finishedAt;
+        final Duration timeTaken;
+        final boolean incomplete;
+        final Map<String, Bean> beans;
+        final Map<String, long[]> steps;
+        final List<Bean> criticalPath;
+
+        Run(int number, long finishedAt, Duration timeTaken, boolean incomplete, Map<String, Bean> beans,
+            Map<String, long[]> steps, List<Bean> criticalPath) {
+            this.number = number;
+            this.finishedAt = finishedAt;
+            this.timeTaken = timeTaken;
+            this.incomplete = incomplete;
+            this.beans = beans;
+            this.steps = steps;
+            this.criticalPath = criticalPath;
+        }
+    }
+
+    private static final class Bean {
+        final String name;
+        final String configuration;
+        String type;
+        int count;
+        long totalNanos;
+        long selfNanos;
+
+        Bean(String name, String configuration) {
+            this.name = name;
+            this.configuration = configuration;
+        }
+
+        Bean(String name, String configuration, String type, int count, long totalNanos, long selfNanos) {
+            this(name, configuration);
+            this.type = type;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.selfNanos = selfNanos;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> bean = new LinkedHashMap<>();
+            bean.put("bean", name);
+            bean.put("selfMs", millis(selfNanos));
+            bean.put("totalMs", millis(totalNanos));
+            if (count > 1) {
+                bean.put("created", count);
+            }
+            bean.put("type", type);
+            bean.put("configuration", configuration);
+            return bean;
+        }
+    }
+
+    private static final class Step {
+        final String name;
+        final Long parentId;
+        final long nanos;
+        final List<Step> children = new ArrayList<>();
+        Step parent;
+        long childNanos;
+        String beanName;
+        String beanType;
+
+        Step(String name, Long parentId, long nanos) {
+            this.name = name;
+            this.parentId = parentId;
+            this.nanos = nanos;
+        }
+
+        boolean isBean() {
+            return BEAN_STEP.equals(name) && beanName != null;
+        }
+
+        Step slowestBeanChild() {
+            Step slowest = null;
+            for (Step child : children) {
+                if (child.isBean() && (slowest == null || child.nanos > slowest.nanos)) {
+                    slowest = child;
+                }
+            }
+            return slowest;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.ai.tool.execution.DefaultToolCallResultConverter;
+import org.springframework.ai.tool.execution.ToolCallResultConverter;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Type;
+
+/**
+ * Serializes {@link ToolResponse} results incrementally within their size budget, and any other result like the
+ * default converter does. Referenced from {@code @Tool(resultConverter = ...)}, which instantiates it reflectively,
+ * hence public.
+ */
+public final class StreamingJsonResultConverter implements ToolCallResultConverter {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+    private final ToolCallResultConverter fallback = new DefaultToolCallResultConverter();
+
+    public StreamingJsonResultConverter() {
+    }
+
+    @Override
+    public String convert(@Nullable Object result, @Nullable Type returnType) {
+        if (result instanceof ToolResponse response) {
+            return response.toJson(MAPPER);
+        }
+        return fallback.convert(result, returnType);
+    }
+}
@@ -0,0 +1,91 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation counts, latency, response size and errors of the MCP tools, per tool and per client session. Every
+ * recording is also passed to the {@link Listener}s, which is how the statistics are published to Micrometer.
+ */
+class ToolMetrics {
+
+    static final String UNKNOWN_SESSION = "unknown";
+
+    /**
+     * Receives every tool invocation.
+     */
+    interface Listener {
+        void record(String tool, String session, long nanos, long responseBytes, boolean error);
+    }
+
+    private final Map<String, Stats> byTool = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Stats>> bySession = new ConcurrentHashMap<>();
+    private final List<Listener> listeners;
+    private final long startMillis = System.currentTimeMillis();
+
+    ToolMetrics(List<Listener> listeners) {
+        this.listeners = listeners;
+    }
+
+    void record(String tool, String session, long nanos, long responseBytes, boolean error) {
+        byTool.computeIfAbsent(tool, name -> new Stats()).record(nanos, responseBytes, error);
+        bySession.computeIfAbsent(session, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(tool, name -> new Stats())
+                .record(nanos, responseBytes, error);
+        for (Listener listener : listeners) {
+            listener.record(tool, session, nanos, responseBytes, error);
+        }
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> tools = new TreeMap<>();
+        byTool.forEach((tool, stats) -> tools.put(tool, stats.toMap()));
+
+        Map<String, Object> sessions = new TreeMap<>();
+        bySession.forEach((session, sessionTools) -> {
+            Map<String, Object> sessionStats = new TreeMap<>();
+            sessionTools.forEach((tool, stats) -> sessionStats.put(tool, stats.toMap()));
+            sessions.put(session, sessionStats);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", new java.util.Date(startMillis).toString());
+        result.put("tools", tools);
+        result.put("sessions", sessions);
+        return result;
+    }
+
+    private static final class Stats {
+        final LongAdder errors = new LongAdder();
+        final LongAdder responseBytes = new LongAdder();
+        final LongAccumulator maxResponseBytes = new LongAccumulator(Math::max, 0);
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long nanos, long bytes, boolean error) {
+            latency.record(nanos);
+            responseBytes.add(bytes);
+            maxResponseBytes.accumulate(bytes);
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        Map<String, Object> toMap() {
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("calls", snapshot.count);
+            result.put("errors", errors.sum());
+            result.put("latency", snapshot.toMillisMap());
+            long bytes = responseBytes.sum();
+            result.put("responseBytes", bytes);
+            result.put("meanResponseBytes", snapshot.count == 0 ? 0 : bytes / snapshot.count);
+            result.put("maxResponseBytes", maxResponseBytes.get());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A tool result that {@link StreamingJsonResultConverter} writes incrementally with a {@link JsonGenerator} and stops
+ * writing once the response reaches its size budget, marking it as truncated. Rows and entries are serialized one at
+ * a time, so a response never holds more than its budget plus one element.
+ */
+abstract class ToolResponse {
+
+    /**
+     * Room kept for the fields written after the truncated content.
+     */
+    private static final int TRAILER_BYTES = 256;
+
+    enum Format {
+        /**
+         * One JSON object per row, under {@code items}.
+         */
+        ROWS,
+        /**
+         * The column names once under {@code columns}, then one array of values per row under {@code rows}.
+         */
+        COLUMNAR;
+
+        /**
+         * Returns {@code null} for an unknown format.
+         */
+        static Format parse(String format) {
+            if (format == null || format.isBlank()) {
+                return ROWS;
+            }
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final long maxBytes;
+
+    ToolResponse(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * A table whose rows are produced lazily. When the budget is reached, {@code nextCursor} is the value of the
+     * cursor column of the last row written, otherwise it is {@code sourceNextCursor}, the cursor of the underlying
+     * page if there is one. The cursor column may follow the written columns, so that a row carries a cursor it does
+     * not show.
+     */
+    static ToolResponse table(long maxBytes, Format format, String[] columns, int cursorColumn, Iterator<Object[]> rows,
+                              String sourceNextCursor) {
+        return new Table(maxBytes, format, columns, cursorColumn >= 0 ? row -> String.valueOf(row[cursorColumn]) : null,
+                rows, sourceNextCursor);
+    }
+
+    /**
+     * A tree of maps and collections. Entries of the first two levels are written one by one, deeper values whole.
+     * When the budget is reached the remaining entries are counted as omitted and {@code hint} tells how to narrow
+     * the query.
+     */
+    static ToolResponse tree(long maxBytes, Map<String, ?> tree, String hint) {
+        return tree(maxBytes, tree, hint, 2);
+    }
+
+    /**
+     * A tree whose entries are written one by one down to {@code levels} levels.
+     */
+    static ToolResponse tree(long maxBytes, Map<String, ?> tree, String hint, int levels) {
+        return new Tree(maxBytes, tree, hint, levels);
+    }
+
+    String toJson(ObjectMapper mapper) {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            write(generator, mapper, new Budget(maxBytes - TRAILER_BYTES));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    abstract void write(JsonGenerator generator, ObjectMapper mapper, Budget budget) throws IOException;
+
+    static final class Budget {
+        private long remaining;
+
+        Budget(long remaining) {
+            this.remaining = remaining;
+        }
+
+        boolean tryConsume(long bytes) {
+            if (bytes > remaining) {
+                return false;
+            }
+            remaining -= bytes;
+            return true;
+        }
+
+        void consume(long bytes) {
+            remaining -= bytes;
+        }
+    }
+
+    private static final class Table extends ToolResponse {
+        private final Format format;
+        private final String[] columns;
+        private final Function<Object[], String> cursor;
+        private final Iterator<Object[]> rows;
+        private final String sourceNextCursor;
+
+        Table(long maxBytes, Format format, String[] columns, Function<Object[], String> cursor, Iterator<Object[]> rows,
+              String sourceNextCursor) {
+            super(maxBytes);
+            this.format = format;
+            this.columns = columns;
+            this.cursor = cursor;
+            this.rows = rows;
+            this.sourceNextCursor = sourceNextCursor;
+        }
+
+        @Override
+        void write(JsonGenerator generator, ObjectMapper mapper, Budget budget) throws IOException {
+            generator.writeStartObject();
+            if (format == Format.COLUMNAR) {
+                generator.writeArrayFieldStart("columns");
+                for (String column : columns) {
+                    generator.writeString(column);
+                    budget.consume(column.length() + 3);
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("rows");
+            } else {
+                generator.writeArrayFieldStart("items");
+            }
+
+            StringWriter rowOut = new StringWriter();
+            int count = 0;
+            String lastCursor = null;
+            boolean truncated = false;
+            while (rows.hasNext()) {
+                Object[] row = rows.next();
+                rowOut.getBuffer().setLength(0);
+                try (JsonGenerator rowGenerator = mapper.getFactory().createGenerator(rowOut)) {
+                    writeRow(rowGenerator, row);
+                }
+                String json = rowOut.toString();
+                // always write one row so that following the cursor makes progress
+                if (!budget.tryConsume(InstrumentedToolCallback.utf8Length(json) + 1) && count > 0) {
+                    truncated = true;
+                    break;
+                }
+                generator.writeRawValue(json);
+                count++;
+                if (cursor != null) {
+                    lastCursor = cursor.apply(row);
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeNumberField("count", count);
+            if (truncated) {
+                generator.writeBooleanField("truncated", true);
+            }
+            String nextCursor = truncated ? lastCursor : sourceNextCursor;
+            if (nextCursor != null) {
+                generator.writeStringField("nextCursor", nextCursor);
+            }
+            generator.writeEndObject();
+        }
+
+        private void writeRow(JsonGenerator generator, Object[] row) throws IOException {
+            if (format == Format.COLUMNAR) {
+                generator.writeStartArray();
+                for (int i = 0; i < columns.length; i++) {
+                    generator.writeObject(row[i]);
+                }
+                generator.writeEndArray();
+            } else {
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    if (row[i] != null) {
+                        generator.writeFieldName(columns[i]);
+                        generator.writeObject(row[i]);
+                    }
+                }
+                generator.writeEndObject();
+            }
+        }
+    }
+
+    private static final class Tree extends ToolResponse {
+        private final Map<String, ?> tree;
+        private final String hint;
+        private final int levels;
+        private boolean truncated;
+
+        Tree(long maxBytes, Map<String, ?> tree, String hint, int levels) {
+            super(maxBytes);
+            this.tree = tree;
+            this.hint = hint;
+            this.levels = levels;
+        }
+
+        @Override
+        void write(JsonGenerator generator, ObjectMapper mapper, Budget budget) throws IOException {
+            generator.writeStartObject();
+            writeEntries(generator, mapper, budget, tree, 1);
+            if (truncated) {
+                generator.writeObjectFieldStart("_truncated");
+                generator.writeStringField("reason", "the response exceeded its size budget");
+                generator.writeStringField("hint", hint);
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+
+        private void writeEntries(JsonGenerator generator, ObjectMapper mapper, Budget budget, Map<?, ?> map, int level) throws IOException {
+            int omitted = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (omitted > 0) {
+                    omitted++;
+                    continue;
+                }
+                String name = String.valueOf(entry.getKey());
+                if (level < levels && (entry.getValue() instanceof Map<?, ?> || entry.getValue() instanceof Collection<?>)) {
+                    generator.writeFieldName(name);
+                    budget.consume(name.length() + 4);
+                    writeContainer(generator, mapper, budget, entry.getValue(), level + 1);
+                    continue;
+                }
+                String json = mapper.writeValueAsString(entry.getValue());
+                if (budget.tryConsume(name.length() + InstrumentedToolCallback.utf8Length(json) + 4)) {
+                    generator.writeFieldName(name);
+                    generator.writeRawValue(json);
+                } else {
+                    omitted++;
+                }
+            }
+            if (omitted > 0) {
+                truncated = true;
+                generator.writeNumberField("_omittedEntries", omitted);
+            }
+        }
+
+        private void writeContainer(JsonGenerator generator, ObjectMapper mapper, Budget budget, Object container, int level) throws IOException {
+            if (container instanceof Map<?, ?> map) {
+                generator.writeStartObject();
+                writeEntries(generator, mapper, budget, map, level);
+                generator.writeEndObject();
+                return;
+            }
+
+            generator.writeStartArray();
+            int omitted = 0;
+            for (Object item : (Collection<?>) container) {
+                if (omitted > 0) {
+                    omitted++;
+                    continue;
+                }
+                String json = mapper.writeValueAsString(item);
+                if (budget.tryConsume(InstrumentedToolCallback.utf8Length(json) + 1)) {
+                    generator.writeRawValue(json);
+                } else {
+                    omitted++;
+                }
+            }
+            if (omitted > 0) {
+                truncated = true;
+                generator.writeStartObject();
+                generator.writeNumberField("_omittedItems", omitted);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.RequestPredicate;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Collects the Spring MVC routes for {@link RouteIndex}. Only loaded when Spring MVC is on the classpath.
+ */
+final class WebMvcRoutes {
+
+    private WebMvcRoutes() {
+    }
+
+    static void collect(ApplicationContext applicationContext, List<RouteIndex.Route> routes) {
+        for (Map.Entry<String, RequestMappingHandlerMapping> mapping : applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).entrySet()) {
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getValue().getHandlerMethods().entrySet()) {
+                RequestMappingInfo info = entry.getKey();
+                List<String> conditions = new ArrayList<>();
+                info.getParamsCondition().getExpressions().forEach(expression -> conditions.add("param " + expression));
+                info.getHeadersCondition().getExpressions().forEach(expression -> conditions.add("header " + expression));
+                for (String pattern : info.getPatternValues()) {
+                    routes.add(RouteIndex.route(RouteIndex.WEBMVC, "annotated", pattern,
+                            info.getMethodsCondition().getMethods(),
+                            info.getConsumesCondition().getConsumableMediaTypes(),
+                            info.getProducesCondition().getProducibleMediaTypes(),
+                            conditions, RouteIndex.handler(entry.getValue()), mapping.getKey()));
+                }
+            }
+        }
+
+        for (Map.Entry<String, RouterFunction> routerFunction : applicationContext.getBeansOfType(RouterFunction.class).entrySet()) {
+            RouteIndex.FunctionalRoutes functionalRoutes = new RouteIndex.FunctionalRoutes(RouteIndex.WEBMVC, routerFunction.getKey(), routes);
+            routerFunction.getValue().accept(new Visitor(functionalRoutes));
+        }
+    }
+
+    private static final class Visitor implements RouterFunctions.Visitor {
+        private final RouteIndex.FunctionalRoutes functionalRoutes;
+        private final PredicateVisitor predicateVisitor;
+
+        Visitor(RouteIndex.FunctionalRoutes functionalRoutes) {
+            this.functionalRoutes = functionalRoutes;
+            this.predicateVisitor = new PredicateVisitor(functionalRoutes);
+        }
+
+        @Override
+        public void startNested(RequestPredicate predicate) {
+            functionalRoutes.startPredicate();
+            predicate.accept(predicateVisitor);
+            functionalRoutes.startNested();
+        }
+
+        @Override
+        public void endNested(RequestPredicate predicate) {
+            functionalRoutes.endNested();
+        }
+
+        @Override
+        public void route(RequestPredicate predicate, HandlerFunction<?> handlerFunction) {
+            functionalRoutes.startPredicate();
+            predicate.accept(predicateVisitor);
+            functionalRoutes.route(RouteIndex.FunctionalRoutes.handler(handlerFunction));
+        }
+
+        @Override
+        public void resources(Function<ServerRequest, Optional<Resource>> lookupFunction) {
+            functionalRoutes.other("resources", lookupFunction.toString());
+        }
+
+        @Override
+        public void attributes(Map<String, Object> attributes) {
+        }
+
+        @Override
+        public void unknown(RouterFunction<?> routerFunction) {
+            functionalRoutes.other("unknown", routerFunction.toString());
+        }
+    }
+
+    private static final class PredicateVisitor implements RequestPredicates.Visitor {
+        private final RouteIndex.FunctionalRoutes functionalRoutes;
+
+        PredicateVisitor(RouteIndex.FunctionalRoutes functionalRoutes) {
+            this.functionalRoutes = functionalRoutes;
+        }
+
+        @Override
+        public void method(Set<HttpMethod> methods) {
+            functionalRoutes.method(methods.stream().map(HttpMethod::name).toList());
+        }
+
+        @Override
+        public void path(String pattern) {
+            functionalRoutes.path(pattern);
+        }
+
+        @Override
+        public void pathExtension(String extension) {
+            functionalRoutes.condition("extension " + extension);
+        }
+
+        @Override
+        public void header(String name, String value) {
+            functionalRoutes.condition("header " + name + "=" + value);
+        }
+
+        @Override
+        public void param(String name, String value) {
+            functionalRoutes.condition("param " + name + "=" + value);
+        }
+
+        @Override
+        public void startAnd() {
+        }
+
+        @Override
+        public void and() {
+        }
+
+        @Override
+        public void endAnd() {
+        }
+
+        @Override
+        public void startOr() {
+        }
+
+        @Override
+        public void or() {
+        }
+
+        @Override
+        public void endOr() {
+        }
+
+        @Override
+        public void startNegate() {
+            functionalRoutes.startNegate();
+        }
+
+        @Override
+        public void endNegate() {
+            functionalRoutes.endNegate();
+        }
+
+        @Override
+        public void unknown(RequestPredicate predicate) {
+            functionalRoutes.condition(predicate.toString());
+        }
+    }
+}
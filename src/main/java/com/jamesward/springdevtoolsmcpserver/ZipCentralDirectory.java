@@ -0,0 +1,184 @@
+package com.jamesward.springdevtoolsmcpserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * The central directory of a zip that starts at some offset of a file, read in place with positional reads of a
+ * channel, the way Spring Boot's {@code NestedJarFile} reads the jars stored uncompressed in a fat jar. Entries are
+ * read whole, so this is meant for the small ones such as manifests.
+ * <p>
+ * Positional reads do not move the channel, so the entries of several zips of the same file can be read from
+ * different threads. Zip64 archives are not supported, {@link #read} throws a {@link ZipException} for them so that
+ * the caller falls back to {@code java.util.zip}.
+ */
+final class ZipCentralDirectory {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int ENTRY_SIGNATURE = 0x02014b50;
+    private static final int ENTRY_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    /**
+     * Entries larger than this are not read, no manifest or properties file comes close.
+     */
+    private static final int MAX_ENTRY_SIZE = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long start;
+    private final List<Entry> entries;
+
+    private ZipCentralDirectory(FileChannel channel, long start, List<Entry> entries) {
+        this.channel = channel;
+        this.start = start;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the central directory of the zip of {@code length} bytes at {@code start} in the file.
+     */
+    static ZipCentralDirectory read(FileChannel channel, long start, long length) throws IOException {
+        int tailLength = (int) Math.min(length, END_SIZE + MAX_COMMENT_SIZE);
+        if (tailLength < END_SIZE) {
+            throw new ZipException("Not a zip");
+        }
+        ByteBuffer tail = read(channel, start + length - tailLength, tailLength);
+        int end = -1;
+        for (int i = tailLength - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new ZipException("No end of central directory");
+        }
+        int count = Short.toUnsignedInt(tail.getShort(end + 10));
+        long size = Integer.toUnsignedLong(tail.getInt(end + 12));
+        long offset = Integer.toUnsignedLong(tail.getInt(end + 16));
+        if (count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+            throw new ZipException("Zip64 is not supported");
+        }
+        if (offset + size > length || size > Integer.MAX_VALUE) {
+            throw new ZipException("Central directory out of bounds");
+        }
+
+        ByteBuffer directory = read(channel, start + offset, (int) size);
+        List<Entry> entries = new ArrayList<>(count);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (position + ENTRY_SIZE > size || directory.getInt(position) != ENTRY_SIGNATURE) {
+                throw new ZipException("Invalid central directory entry");
+            }
+            int method = Short.toUnsignedInt(directory.getShort(position + 10));
+            long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+            long uncompressedSize = Integer.toUnsignedLong(directory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+            if (position + ENTRY_SIZE + nameLength > size) {
+                throw new ZipException("Invalid central directory entry");
+            }
+            byte[] name = new byte[nameLength];
+            directory.get(position + ENTRY_SIZE, name);
+            entries.add(new Entry(new String(name, StandardCharsets.UTF_8), method, compressedSize, uncompressedSize, localHeaderOffset));
+            position += ENTRY_SIZE + nameLength + extraLength + commentLength;
+        }
+        return new ZipCentralDirectory(channel, start, List.copyOf(entries));
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * The zip stored uncompressed as {@code entry}, read in place.
+     */
+    ZipCentralDirectory nested(Entry entry) throws IOException {
+        if (entry.method() != STORED) {
+            throw new ZipException("Entry is compressed: " + entry.name());
+        }
+        return read(channel, dataOffset(entry), entry.compressedSize());
+    }
+
+    /**
+     * The uncompressed content of a stored or deflated entry.
+     */
+    byte[] content(Entry entry) throws IOException {
+        if (entry.compressedSize() > MAX_ENTRY_SIZE || entry.size() > MAX_ENTRY_SIZE) {
+            throw new ZipException("Entry too large: " + entry.name());
+        }
+        ByteBuffer data = read(channel, dataOffset(entry), (int) entry.compressedSize());
+        if (entry.method() == STORED) {
+            return data.array();
+        }
+        if (entry.method() != DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method() + ": " + entry.name());
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data.array());
+            byte[] content = new byte[(int) entry.size()];
+            int inflated = 0;
+            while (inflated < content.length && !inflater.finished()) {
+                int read = inflater.inflate(content, inflated, content.length - inflated);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += read;
+            }
+            if (inflated != content.length) {
+                throw new ZipException("Truncated entry: " + entry.name());
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflated entry " + entry.name() + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * The offset of the entry's data in the file, after its local header, whose name and extra field lengths may
+     * differ from those of the central directory.
+     */
+    private long dataOffset(Entry entry) throws IOException {
+        long header = start + entry.localHeaderOffset();
+        ByteBuffer local = read(channel, header, LOCAL_HEADER_SIZE);
+        if (local.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header: " + entry.name());
+        }
+        return header + LOCAL_HEADER_SIZE + Short.toUnsignedInt(local.getShort(26)) + Short.toUnsignedInt(local.getShort(28));
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new ZipException("Unexpected end of file");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * An entry, with the offset of its local header from the start of its zip.
+     */
+    record Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+    }
+}
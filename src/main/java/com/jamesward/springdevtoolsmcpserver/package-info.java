@@ -0,0 +1,14 @@
+/**
+ * An MCP server that exposes the internals of a Spring Boot application run with devtools.
+ * <p>
+ * <b>State kept across restarts.</b> Devtools restarts the application in a new class loader and keeps the base class
+ * loader, which loads the jars that are not part of the project, this library included. The classes of this package
+ * are therefore loaded once per JVM, and the few that compare one restart with the next keep that state in static
+ * fields: the change feed history, the startup profiles, the heap histograms and the captured logs. The beans that
+ * read it are recreated with every context, the state is not.
+ * <p>
+ * This does not hold when the jar is matched by a {@code restart.include} entry of
+ * {@code META-INF/spring-devtools.properties}: it is then loaded again by every restart class loader, the static
+ * state starts over with each restart, and clients of the change feed are asked to resync.
+ */
+package com.jamesward.springdevtoolsmcpserver;